@@ -3,6 +3,7 @@ plugins {
     `maven-publish`
     alias(libs.plugins.lavalink)
     kotlin("jvm") version "1.9.22"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.zenkho"
@@ -26,12 +27,60 @@ tasks {
     compileJava {
         options.encoding = "UTF-8"
     }
+
+    test {
+        useJUnitPlatform()
+    }
+}
+
+// ./gradlew jmh, results in build/results/jmh
+jmh {
+    jmhVersion.set("1.37")
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    (findProperty("jmhIncludes") as String?)?.let { includes.set(listOf(it)) }
+}
+
+// Local load harness, see LoadHarness
+sourceSets {
+    create("loadTest") {
+        compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+        runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+    }
 }
 
 dependencies {
     implementation("org.jetbrains.kotlin:kotlin-stdlib")
     implementation("com.squareup.okhttp3:okhttp:4.12.0")
+
+    // Metrics, exported through the Prometheus client that Lavalink already ships
+    implementation("io.micrometer:micrometer-registry-prometheus:1.12.5") {
+        exclude(group = "io.prometheus")
+    }
+    compileOnly("io.prometheus:simpleclient:0.16.0")
     
     // Logging
     implementation("org.slf4j:slf4j-api:2.0.9")
+
+    testImplementation("org.junit.jupiter:junit-jupiter:5.10.2")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
+
+    // Lavalink provides lavaplayer to the plugin, the harness runs without Lavalink
+    "loadTestImplementation"("dev.arbjerg:lavaplayer:2.1.2")
+    "loadTestRuntimeOnly"("org.slf4j:slf4j-simple:2.0.9")
+}
+
+// ./gradlew loadTest -Pstations=300 -Pduration=120 -Pmix=normal:80,drop:20
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Plays synthetic ICY stations from an in-process server and reports per-stream costs"
+    classpath = sourceSets["loadTest"].runtimeClasspath
+    mainClass.set("com.zenkho.icy.load.LoadHarness")
+    args = listOf("stations", "listeners", "duration", "readAhead", "mix")
+        .mapNotNull { name -> findProperty(name)?.let { "--$name=$it" } }
+    jvmArgs("-Xmx2g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
 }
@@ -0,0 +1,67 @@
+package com.zenkho.icy.metadata;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metadata parsing on what stations really send and on blocks built to be worst cases:
+ * maximum length, keys repeated without terminators, and non-ASCII titles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IcyMetadataParserBenchmark {
+
+    @Param({"realistic", "unicode", "unterminated", "repeatedKeys"})
+    public String metadata;
+
+    private final IcyMetadataParser parser = new IcyMetadataParser();
+    private String text;
+    private byte[] block;
+
+    @Setup
+    public void setup() {
+        switch (metadata) {
+            case "realistic":
+                text = "StreamTitle='Daft Punk - Get Lucky (feat. Pharrell Williams)';StreamUrl='https://example.com/';";
+                break;
+            case "unicode":
+                text = "StreamTitle='Sơn Tùng M-TP - Chúng Ta Của Hiện Tại 🎵';";
+                break;
+            case "unterminated":
+                text = "StreamTitle='" + "x".repeat(IcyMetadataParser.MAX_METADATA_LENGTH - 13);
+                break;
+            case "repeatedKeys":
+                text = "StreamTitle=".repeat(IcyMetadataParser.MAX_METADATA_LENGTH / 12);
+                break;
+            default:
+                throw new IllegalArgumentException(metadata);
+        }
+
+        block = text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public IcyMetadataParser.IcyMetadata parse() {
+        return parser.parse(text);
+    }
+
+    @Benchmark
+    public String parseStreamTitle() {
+        return parser.parseStreamTitle(text);
+    }
+
+    @Benchmark
+    public long findStreamTitle() {
+        return IcyMetadataParser.findStreamTitle(block, Math.min(block.length, IcyMetadataParser.MAX_METADATA_LENGTH));
+    }
+}
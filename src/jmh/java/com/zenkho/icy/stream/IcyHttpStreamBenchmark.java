@@ -0,0 +1,48 @@
+package com.zenkho.icy.stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Header sanitizing done on every (re)connect.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IcyHttpStreamBenchmark {
+
+    @Param({"plain", "controlCharacters", "list"})
+    public String kind;
+
+    private String header;
+
+    @Setup
+    public void setup() {
+        switch (kind) {
+            case "plain":
+                header = "Cool FM";
+                break;
+            case "controlCharacters":
+                header = "  Radio\tStation \u0007 with   control\r\ncharacters  ";
+                break;
+            case "list":
+                header = "128,128";
+                break;
+            default:
+                throw new IllegalArgumentException(kind);
+        }
+    }
+
+    @Benchmark
+    public String sanitizeHeader() {
+        return IcyHttpStream.sanitizeHeader(header);
+    }
+}
@@ -0,0 +1,82 @@
+package com.zenkho.icy.stream;
+
+import com.zenkho.icy.metrics.IcyMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Demuxing a 4 MB ICY body, the per-byte path every playing stream goes through.
+ * The title changes every 8 blocks, as with a station changing songs often.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IcyMetadataInputStreamBenchmark {
+
+    private static final int STREAM_LENGTH = 4 * 1024 * 1024;
+
+    @Param({"8192", "16000", "32768"})
+    public int metaInt;
+
+    @Param({"1", "512", "4096"})
+    public int readSize;
+
+    private byte[] body;
+    private byte[] buffer;
+    private IcyMetrics metrics;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] audio = new byte[metaInt];
+        int blocks = STREAM_LENGTH / metaInt;
+
+        for (int i = 0; i < blocks; i++) {
+            random.nextBytes(audio);
+            out.write(audio);
+            writeMetadata(out, "StreamTitle='Artist " + (i / 8) + " - A Song Title';StreamUrl='https://example.com/';");
+        }
+
+        body = out.toByteArray();
+        buffer = new byte[readSize];
+        metrics = IcyMetrics.disabled();
+    }
+
+    private static void writeMetadata(ByteArrayOutputStream out, String metadata) {
+        byte[] bytes = metadata.getBytes(StandardCharsets.UTF_8);
+        int size = (bytes.length + 15) / 16;
+        out.write(size);
+        out.write(bytes, 0, bytes.length);
+        for (int i = bytes.length; i < size * 16; i++) {
+            out.write(0);
+        }
+    }
+
+    @Benchmark
+    public long demux(Blackhole blackhole) throws IOException {
+        IcyMetadataInputStream stream = new IcyMetadataInputStream(
+            new ByteArrayInputStream(body), metaInt, blackhole::consume, metrics);
+
+        long total = 0;
+        int read;
+        while ((read = stream.read(buffer, 0, buffer.length)) >= 0) {
+            total += read;
+        }
+        return total;
+    }
+}
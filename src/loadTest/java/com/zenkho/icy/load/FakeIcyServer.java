@@ -0,0 +1,237 @@
+package com.zenkho.icy.load;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-process stand-in for an Icecast/SHOUTcast server on the loopback interface.
+ * <p>
+ * Every station serves silent 128 kbps MPEG-1 Layer III frames paced in real time, with
+ * ICY metadata blocks when the client asks for them, after the usual connect burst. The {@code mode} query parameter
+ * selects how the station misbehaves.
+ */
+class FakeIcyServer implements Closeable {
+
+    enum Mode {
+        /** Paced at the announced bitrate. */
+        NORMAL,
+        /** Delivers 75% of the announced bitrate, so buffers eventually run dry. */
+        SLOW,
+        /** Right bitrate, but in writes of a few bytes each. */
+        DRIP,
+        /** Drops the connection 5 to 15 seconds into every response. */
+        DROP,
+        /** Redirects to the normal stream first. */
+        REDIRECT
+    }
+
+    static final int BITRATE_KBPS = 128;
+    static final int META_INT = 16000;
+
+    private static final int BYTES_PER_SECOND = BITRATE_KBPS * 1000 / 8;
+    // MPEG-1 Layer III, 128 kbps, 44.1 kHz, no padding, no CRC: 144 * 128000 / 44100
+    private static final int FRAME_LENGTH = 417;
+    private static final byte[] FRAME = new byte[FRAME_LENGTH];
+    private static final long TITLE_INTERVAL_MS = 30000;
+    // Icecast's default burst-on-connect
+    private static final int BURST_BYTES = 64 * 1024;
+
+    static {
+        FRAME[0] = (byte) 0xFF;
+        FRAME[1] = (byte) 0xFB;
+        FRAME[2] = (byte) 0x90;
+        FRAME[3] = (byte) 0x00;
+    }
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    FakeIcyServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+        this.connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-icy-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        connections.execute(this::acceptLoop);
+    }
+
+    /**
+     * @return URL of the station, shaped so the source manager accepts it without probing
+     */
+    String url(int station, Mode mode) {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/stream/" + station + ".mp3?mode="
+            + mode.name().toLowerCase(Locale.ROOT);
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                openSockets.add(socket);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Fake ICY server stopped accepting: " + e.getMessage());
+                }
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            String requestLine = reader.readLine();
+            if (requestLine == null) {
+                return;
+            }
+
+            boolean metadata = false;
+            String header;
+            while ((header = reader.readLine()) != null && !header.isEmpty()) {
+                metadata |= header.toLowerCase(Locale.ROOT).startsWith("icy-metadata:") && header.trim().endsWith("1");
+            }
+
+            String[] parts = requestLine.split(" ");
+            String target = parts.length > 1 ? parts[1] : "/";
+            String path = target.contains("?") ? target.substring(0, target.indexOf('?')) : target;
+            Mode mode = parseMode(target);
+            OutputStream out = socket.getOutputStream();
+
+            if (mode == Mode.REDIRECT) {
+                write(out, "HTTP/1.1 302 Found\r\nLocation: " + path + "?mode=normal\r\nContent-Length: 0\r\nConnection: close\r\n\r\n");
+                return;
+            }
+
+            StringBuilder response = new StringBuilder()
+                .append("HTTP/1.1 200 OK\r\n")
+                .append("Content-Type: audio/mpeg\r\n")
+                .append("icy-name: Load Station ").append(path).append("\r\n")
+                .append("icy-genre: Synthetic\r\n")
+                .append("icy-br: ").append(BITRATE_KBPS).append("\r\n")
+                .append("Connection: close\r\n");
+            if (metadata) {
+                response.append("icy-metaint: ").append(META_INT).append("\r\n");
+            }
+            write(out, response.append("\r\n").toString());
+
+            if (!"HEAD".equals(parts[0])) {
+                stream(out, path, mode, metadata);
+            }
+        } catch (SocketException e) {
+            // Client went away or the server is closing
+        } catch (IOException | InterruptedException e) {
+            if (!closed) {
+                System.err.println("Fake ICY connection failed: " + e.getMessage());
+            }
+        } finally {
+            openSockets.remove(socket);
+        }
+    }
+
+    private static Mode parseMode(String target) {
+        int index = target.indexOf("mode=");
+        if (index < 0) {
+            return Mode.NORMAL;
+        }
+
+        int end = target.indexOf('&', index);
+        return Mode.valueOf(target.substring(index + 5, end < 0 ? target.length() : end).toUpperCase(Locale.ROOT));
+    }
+
+    private void stream(OutputStream out, String station, Mode mode, boolean metadata) throws IOException, InterruptedException {
+        int rate = mode == Mode.SLOW ? BYTES_PER_SECOND * 3 / 4 : BYTES_PER_SECOND;
+        int tickMs = mode == Mode.DRIP ? 2 : 100;
+        long dropAt = mode == Mode.DROP ? 5000 + ThreadLocalRandom.current().nextLong(10000) : Long.MAX_VALUE;
+
+        long start = System.nanoTime();
+        long sent = mode == Mode.SLOW ? 0 : -BURST_BYTES;
+        int framePosition = 0;
+        int untilMetadata = META_INT;
+        long title = -1;
+
+        while (!closed) {
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            if (elapsedMs >= dropAt) {
+                return;
+            }
+
+            int due = (int) Math.min(rate, elapsedMs * rate / 1000 - sent);
+            if (due <= 0) {
+                Thread.sleep(tickMs);
+                continue;
+            }
+
+            int written = 0;
+            while (written < due) {
+                if (metadata && untilMetadata == 0) {
+                    long currentTitle = elapsedMs / TITLE_INTERVAL_MS;
+                    out.write(metadataBlock(currentTitle != title ? station + " - Song " + currentTitle : null));
+                    title = currentTitle;
+                    untilMetadata = META_INT;
+                }
+
+                int length = Math.min(due - written, FRAME_LENGTH - framePosition);
+                if (metadata) {
+                    length = Math.min(length, untilMetadata);
+                    untilMetadata -= length;
+                }
+
+                out.write(FRAME, framePosition, length);
+                framePosition = (framePosition + length) % FRAME_LENGTH;
+                written += length;
+            }
+
+            out.flush();
+            sent += written;
+        }
+    }
+
+    // Empty block (a single zero byte) unless the title changed, as real servers do
+    private static byte[] metadataBlock(String title) {
+        if (title == null) {
+            return new byte[1];
+        }
+
+        byte[] text = ("StreamTitle='" + title + "';").getBytes(StandardCharsets.UTF_8);
+        int blocks = (text.length + 15) / 16;
+        byte[] block = new byte[1 + blocks * 16];
+        block[0] = (byte) blocks;
+        System.arraycopy(text, 0, block, 1, text.length);
+        return block;
+    }
+
+    private static void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+
+        for (Socket socket : openSockets) {
+            socket.close();
+        }
+        connections.shutdownNow();
+    }
+}
@@ -0,0 +1,292 @@
+package com.zenkho.icy.load;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.player.event.AudioEventAdapter;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.load.FakeIcyServer.Mode;
+import com.zenkho.icy.metrics.IcyMetrics;
+import com.zenkho.icy.source.IcySourceManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays N stations from an in-process fake ICY server through a real AudioPlayerManager
+ * and reports what a node would see: time to first frame, frame rate, underruns,
+ * reconnects and the CPU and heap cost per stream.
+ * <p>
+ * Frames are pulled every 20ms like Lavalink does for a voice connection, so a missing
+ * frame after playback started is an audible gap. Run with {@code ./gradlew loadTest}.
+ */
+public final class LoadHarness {
+
+    private static final long FRAME_INTERVAL_MS = 20;
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        System.out.printf("Load test: %d stations x %d listeners for %ds, mix %s%n",
+            options.stations, options.listeners, options.durationSeconds, options.mix);
+
+        Config config = new Config();
+        config.readAhead = options.readAhead;
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        FakeIcyServer server = new FakeIcyServer();
+        DefaultAudioPlayerManager manager = new DefaultAudioPlayerManager();
+        manager.registerSourceManager(new IcySourceManager(config, new IcyMetrics(registry, 1)));
+
+        System.gc();
+        long heapBefore = usedHeap();
+        long cpuBefore = processCpuNanos();
+        long wallBefore = System.nanoTime();
+
+        List<Listener> listeners = new ArrayList<>();
+        for (int station = 0; station < options.stations; station++) {
+            Mode mode = options.modeOf(station);
+            String url = server.url(station, mode);
+
+            for (int i = 0; i < options.listeners; i++) {
+                Listener listener = new Listener(mode, manager.createPlayer());
+                listeners.add(listener);
+                listener.load(manager, url);
+            }
+        }
+
+        ScheduledExecutorService clock = Executors.newSingleThreadScheduledExecutor();
+        clock.scheduleAtFixedRate(() -> listeners.forEach(Listener::pull), 0, FRAME_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(options.durationSeconds));
+
+        // Measure before teardown, the streams are still playing
+        long cpu = processCpuNanos() - cpuBefore;
+        long wall = System.nanoTime() - wallBefore;
+        System.gc();
+        long heap = usedHeap() - heapBefore;
+
+        clock.shutdownNow();
+        clock.awaitTermination(1, TimeUnit.SECONDS);
+        listeners.forEach(listener -> listener.player.destroy());
+        manager.shutdown();
+        server.close();
+
+        report(listeners, registry, cpu, wall, heap);
+    }
+
+    private static void report(List<Listener> listeners, MeterRegistry registry, long cpuNanos, long wallNanos, long heapBytes) {
+        int count = listeners.size();
+        System.out.println();
+        System.out.printf("%-10s %8s %8s %8s %8s %10s %10s %8s%n",
+            "mode", "streams", "playing", "ttff50", "ttff95", "frames/s", "underruns", "errors");
+
+        Map<Mode, List<Listener>> byMode = new EnumMap<>(Mode.class);
+        for (Listener listener : listeners) {
+            byMode.computeIfAbsent(listener.mode, mode -> new ArrayList<>()).add(listener);
+        }
+
+        for (Map.Entry<Mode, List<Listener>> entry : byMode.entrySet()) {
+            printRow(entry.getKey().name().toLowerCase(), entry.getValue());
+        }
+        printRow("total", listeners);
+
+        System.out.println();
+        System.out.printf("Reconnects: %.0f succeeded, %.0f retried, %.0f gave up%n",
+            reconnects(registry, "success"), reconnects(registry, "retry"), reconnects(registry, "exhausted"));
+        System.out.printf("CPU per stream: %.2f%% of a core%n", 100.0 * cpuNanos / wallNanos / count);
+        System.out.printf("Heap per stream: %d KB (after GC, includes lavaplayer buffers)%n", heapBytes / count / 1024);
+    }
+
+    private static void printRow(String name, List<Listener> group) {
+        List<Long> ttff = new ArrayList<>();
+        double frameRates = 0;
+        long underruns = 0;
+        long errors = 0;
+
+        for (Listener listener : group) {
+            if (listener.firstFrameAt != 0) {
+                ttff.add((listener.firstFrameAt - listener.startedAt) / 1_000_000);
+
+                double playingSeconds = (listener.lastPullAt - listener.firstFrameAt) / 1e9;
+                frameRates += playingSeconds > 0 ? listener.frames / playingSeconds : 0;
+            }
+            underruns += listener.underruns;
+            errors += listener.errors.get();
+        }
+        Collections.sort(ttff);
+
+        System.out.printf("%-10s %8d %8d %6dms %6dms %10.1f %10d %8d%n",
+            name, group.size(), ttff.size(), percentile(ttff, 50), percentile(ttff, 95),
+            ttff.isEmpty() ? 0.0 : frameRates / ttff.size(), underruns, errors);
+    }
+
+    private static double reconnects(MeterRegistry registry, String outcome) {
+        return registry.counter("icy.reconnect.attempts", "outcome", outcome).count();
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get(Math.min(sorted.size() - 1, sorted.size() * percentile / 100));
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    private static class Listener extends AudioEventAdapter {
+        private final Mode mode;
+        private final AudioPlayer player;
+        private volatile long startedAt;
+        private volatile long firstFrameAt;
+        private volatile long lastPullAt;
+        // Written by the clock thread only, read after it stopped
+        private long frames;
+        private long underruns;
+        private final AtomicInteger errors = new AtomicInteger();
+
+        Listener(Mode mode, AudioPlayer player) {
+            this.mode = mode;
+            this.player = player;
+            player.addListener(this);
+        }
+
+        void load(DefaultAudioPlayerManager manager, String url) {
+            startedAt = System.nanoTime();
+            manager.loadItem(url, new AudioLoadResultHandler() {
+                @Override
+                public void trackLoaded(AudioTrack track) {
+                    player.playTrack(track);
+                }
+
+                @Override
+                public void playlistLoaded(AudioPlaylist playlist) {
+                    errors.incrementAndGet();
+                }
+
+                @Override
+                public void noMatches() {
+                    errors.incrementAndGet();
+                }
+
+                @Override
+                public void loadFailed(FriendlyException exception) {
+                    errors.incrementAndGet();
+                }
+            });
+        }
+
+        void pull() {
+            long now = System.nanoTime();
+
+            if (player.provide() != null) {
+                frames++;
+                if (firstFrameAt == 0) {
+                    firstFrameAt = now;
+                }
+            } else if (firstFrameAt != 0) {
+                underruns++;
+            }
+
+            lastPullAt = now;
+        }
+
+        @Override
+        public void onTrackException(AudioPlayer player, AudioTrack track, FriendlyException exception) {
+            errors.incrementAndGet();
+        }
+
+        @Override
+        public void onTrackStuck(AudioPlayer player, AudioTrack track, long thresholdMs) {
+            errors.incrementAndGet();
+        }
+    }
+
+    private static class Options {
+        private int stations = 200;
+        private int listeners = 1;
+        private int durationSeconds = 60;
+        private boolean readAhead = true;
+        private final Map<Mode, Integer> mix = new EnumMap<>(Mode.class);
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            options.mix.put(Mode.NORMAL, 70);
+            options.mix.put(Mode.SLOW, 5);
+            options.mix.put(Mode.DRIP, 10);
+            options.mix.put(Mode.DROP, 10);
+            options.mix.put(Mode.REDIRECT, 5);
+
+            for (String arg : args) {
+                int equals = arg.indexOf('=');
+                if (!arg.startsWith("--") || equals < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+
+                String name = arg.substring(2, equals);
+                String value = arg.substring(equals + 1);
+                switch (name) {
+                    case "stations":
+                        options.stations = Integer.parseInt(value);
+                        break;
+                    case "listeners":
+                        options.listeners = Integer.parseInt(value);
+                        break;
+                    case "duration":
+                        options.durationSeconds = Integer.parseInt(value);
+                        break;
+                    case "readAhead":
+                        options.readAhead = Boolean.parseBoolean(value);
+                        break;
+                    case "mix":
+                        // e.g. normal=80,drop=20
+                        options.mix.clear();
+                        for (String part : value.split(",")) {
+                            String[] pair = part.split(":|=");
+                            options.mix.put(Mode.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option --" + name);
+                }
+            }
+
+            return options;
+        }
+
+        // Spread the modes over the stations in proportion to their weights
+        Mode modeOf(int station) {
+            int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+            int slot = station % total;
+
+            for (Map.Entry<Mode, Integer> entry : mix.entrySet()) {
+                slot -= entry.getValue();
+                if (slot < 0) {
+                    return entry.getKey();
+                }
+            }
+            return Mode.NORMAL;
+        }
+    }
+}
@@ -1,17 +1,49 @@
 package com.zenkho.icy;
 
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.zenkho.icy.event.NowPlayingPublisher;
+import com.zenkho.icy.metrics.IcyMetrics;
 import com.zenkho.icy.source.IcySourceManager;
+import com.zenkho.icy.stream.StreamExecutors;
 import dev.arbjerg.lavalink.api.AudioPlayerManagerConfiguration;
+import dev.arbjerg.lavalink.api.ISocketServer;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.CollectorRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Service;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Service
+@EnableConfigurationProperties(IcyStreamPlugin.Config.class)
 public class IcyStreamPlugin implements AudioPlayerManagerConfiguration {
 
     private static final Logger log = LoggerFactory.getLogger(IcyStreamPlugin.class);
 
+    private ObjectProvider<ISocketServer> socketServer;
+    private ObjectProvider<MeterRegistry> meterRegistry;
+    private Config config;
+    private volatile IcySourceManager sourceManager;
+    private volatile AudioPlayerManager playerManager;
+
     // NO-ARGS CONSTRUCTOR - Đây là key!
     public IcyStreamPlugin() {
         log.info("=================================================");
@@ -19,12 +51,35 @@ public class IcyStreamPlugin implements AudioPlayerManagerConfiguration {
         log.info("=================================================");
     }
 
+    // The socket server itself depends on the AudioPlayerManager, so it is resolved lazily
+    @Autowired
+    public void setSocketServer(ObjectProvider<ISocketServer> socketServer) {
+        this.socketServer = socketServer;
+    }
+
+    @Autowired
+    public void setMeterRegistry(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Autowired
+    public void setConfig(Config config) {
+        this.config = config;
+    }
+
     @Override
     public AudioPlayerManager configure(AudioPlayerManager manager) {
         log.info("Configuring AudioPlayerManager with IcySourceManager...");
         
-        // Create config with hardcoded defaults
-        Config config = new Config();
+        // Bound from plugins.icy, defaults apply when the block is missing
+        if (config == null) {
+            config = new Config();
+        }
+
+        List<String> errors = config.validate();
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Invalid plugins.icy configuration: " + String.join(", ", errors));
+        }
         
         log.info("Configuration:");
         log.info("  Auto-reconnect: {}", config.autoReconnect);
@@ -34,8 +89,28 @@ public class IcyStreamPlugin implements AudioPlayerManagerConfiguration {
         log.info("  Max retries: {}", config.maxRetries);
         log.info("  Retry delay: {}ms", config.retryDelay);
         log.info("  Follow redirects: {}", config.followRedirects);
+        log.info("  Shared upstream: {}", config.sharedUpstream);
+        log.info("  Shared transcode: {}", config.sharedTranscode);
+        log.info("  Connection pooling: {}", config.connectionPooling);
+        log.info("  Circuit breaker threshold: {}", config.circuitBreakerFailureThreshold);
+        log.info("  Connects per host: {}", config.hostMaxConnects);
+        log.info("  Now playing events: {}", config.nowPlayingEvents);
+        log.info("  Read-ahead: {}", config.readAhead);
+        log.info("  Virtual threads: {}", config.virtualThreads);
+        log.info("  Stall watchdog: {}", config.stallWatchdog);
+        log.info("  Metrics: {}", config.metrics);
         
-        IcySourceManager icySourceManager = new IcySourceManager(config);
+        IcySourceManager icySourceManager = new IcySourceManager(config, createMetrics());
+        sourceManager = icySourceManager;
+        playerManager = manager;
+
+        if (socketServer != null) {
+            icySourceManager.setTrackMetadataListener(new NowPlayingPublisher(
+                socketServer::getIfAvailable,
+                config,
+                icySourceManager.getScheduler()
+            ));
+        }
         manager.registerSourceManager(icySourceManager);
         
         log.info("=================================================");
@@ -45,16 +120,146 @@ public class IcyStreamPlugin implements AudioPlayerManagerConfiguration {
         
         return manager;
     }
+
+    /**
+     * Record into the application's registry if there is one. Otherwise bridge into the
+     * default Prometheus collector registry, which Lavalink's /metrics endpoint exports.
+     */
+    private IcyMetrics createMetrics() {
+        if (!config.metrics) {
+            return IcyMetrics.disabled();
+        }
+
+        MeterRegistry registry = meterRegistry != null ? meterRegistry.getIfAvailable() : null;
+        if (registry == null) {
+            registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT, CollectorRegistry.defaultRegistry, Clock.SYSTEM);
+        }
+
+        return new IcyMetrics(registry, config.metricsMaxHosts);
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * @return the registered source manager, null until Lavalink configured the player manager
+     */
+    public IcySourceManager getSourceManager() {
+        return sourceManager;
+    }
+
+    /**
+     * @return the player manager the source manager is registered with, null until then
+     */
+    public AudioPlayerManager getPlayerManager() {
+        return playerManager;
+    }
     
-    // Simple config class
+    // Bound from the plugins.icy block, see application.example.yml
+    @ConfigurationProperties(prefix = "plugins.icy")
     public static class Config {
-        public boolean autoReconnect = true;
-        public boolean enableMetadata = true;
-        public int connectionTimeout = 10000;
-        public int readTimeout = 30000;
-        public int maxRetries = 3;
-        public int retryDelay = 2000;
-        public boolean followRedirects = true;
+
+        // Settings that are read at use or applied to the HTTP clients on reload,
+        // everything else (thread mode, pool and cache sizes, TLS) needs a restart
+        public static final Set<String> RELOADABLE = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "autoReconnect", "connectionTimeout", "readTimeout", "maxRetries", "retryDelay", "maxRetryDelayMs",
+            "hubBufferSize", "hubBurstSize", "hubLingerMs", "sharedTranscode",
+            "probeCachePositiveTtlMs", "probeCacheNegativeTtlMs", "probeCacheHostFailureTtlMs", "handoffTtlMs",
+            "circuitBreakerFailureThreshold", "circuitBreakerOpenMs", "hostMaxConnects",
+            "nowPlayingEvents", "nowPlayingDebounceMs", "nowPlayingMaxEventsPerSecond",
+            "readAhead", "readAheadMs", "readAheadBytes", "readAheadLowWatermarkPercent", "readAheadHighWatermarkPercent",
+            "hlsPrefetchSegments", "hlsLiveEdgeSegments", "playlistCacheTtlMs", "mirrorRaceDelayMs",
+            "stallWatchdog", "stallWindowMs", "stallThresholdPercent", "okioPipeline",
+            "monitorMaxStations", "monitorIdleMs", "batchLoadParallelism", "batchLoadPerHost", "batchLoadTimeoutMs"
+        )));
+
+        public volatile boolean autoReconnect = true;
+        public volatile boolean enableMetadata = true;
+        public volatile int connectionTimeout = 10000;
+        public volatile int readTimeout = 30000;
+        public volatile int maxRetries = 3;
+        public volatile int retryDelay = 2000;
+        public volatile boolean followRedirects = true;
+        public volatile int maxRetryDelayMs = 30000;
+
+        // Shared upstream (one connection per station, fanned out to all players)
+        public volatile boolean sharedUpstream = true;
+        public volatile int hubBufferSize = 512 * 1024;
+        public volatile int hubBurstSize = 64 * 1024;
+        public volatile int hubLingerMs = 5000;
+        // Transcode a shared station once for players without filters or volume changes
+        public volatile boolean sharedTranscode = false;
+
+        // Stream detection probe cache
+        public volatile int probeCacheSize = 2048;
+        public volatile long probeCachePositiveTtlMs = 10 * 60 * 1000;
+        public volatile long probeCacheNegativeTtlMs = 60 * 1000;
+        public volatile long probeCacheHostFailureTtlMs = 30 * 1000;
+
+        // Fail requests to a host fast after it failed this many times in a row
+        public volatile int circuitBreakerFailureThreshold = 5;
+        public volatile long circuitBreakerOpenMs = 30 * 1000;
+        // Connects in flight per upstream host, beyond it requests queue by priority
+        public volatile int hostMaxConnects = 4;
+
+        // How long the connection opened by loadItem waits to be adopted by playback
+        public volatile long handoffTtlMs = 5000;
+
+        // Connection pooling for probes, playlists and reconnects (audio bodies are never pooled)
+        public volatile boolean connectionPooling = true;
+        public volatile int poolMaxIdleConnections = 16;
+        public volatile long poolKeepAliveMs = 5 * 60 * 1000;
+        public volatile int tlsSessionCacheSize = 1024;
+        public volatile int tlsSessionTimeoutSeconds = 3600;
+
+        // Now playing events pushed to the player's WebSocket session
+        public volatile boolean nowPlayingEvents = true;
+        public volatile long nowPlayingDebounceMs = 1000;
+        public volatile int nowPlayingMaxEventsPerSecond = 5;
+
+        // Recent titles per station, served by /v4/icy/history
+        public volatile int historySize = 20;
+        public volatile int historyMaxStations = 1000;
+
+        // Metadata-only monitors for stations nobody is playing
+        public volatile int monitorMaxStations = 200;
+        public volatile long monitorIdleMs = 5 * 60 * 1000;
+
+        // Batch loading through /v4/icy/loadtracks
+        public volatile int batchLoadParallelism = 16;
+        public volatile int batchLoadPerHost = 4;
+        public volatile long batchLoadTimeoutMs = 30000;
+
+        // Read-ahead jitter buffer between the network and the decoder (dedicated connections only)
+        public volatile boolean readAhead = false;
+        public volatile int readAheadMs = 4000;
+        public volatile int readAheadBytes = 0;
+        public volatile int readAheadLowWatermarkPercent = 25;
+        public volatile int readAheadHighWatermarkPercent = 100;
+
+        // Run upstream readers and blocking I/O on virtual threads
+        public volatile boolean virtualThreads = false;
+
+        // HLS playback
+        public volatile int hlsPrefetchSegments = 3;
+        public volatile int hlsLiveEdgeSegments = 3;
+
+        // PLS/M3U station playlists
+        public volatile long playlistCacheTtlMs = 10 * 60 * 1000;
+        public volatile long mirrorRaceDelayMs = 250;
+
+        // Reconnect streams that deliver below their bitrate long before the read timeout
+        public volatile boolean stallWatchdog = true;
+        public volatile long stallWindowMs = 10000;
+        public volatile int stallThresholdPercent = 75;
+
+        // Read audio straight from OkHttp's Okio source instead of through its InputStream
+        public volatile boolean okioPipeline = false;
+
+        // Prometheus metrics, host tags beyond the limit are reported as "other"
+        public volatile boolean metrics = true;
+        public volatile int metricsMaxHosts = 50;
 
         public boolean isAutoReconnect() { return autoReconnect; }
         public boolean isEnableMetadata() { return enableMetadata; }
@@ -63,5 +268,200 @@ public class IcyStreamPlugin implements AudioPlayerManagerConfiguration {
         public int getMaxRetries() { return maxRetries; }
         public int getRetryDelay() { return retryDelay; }
         public boolean isFollowRedirects() { return followRedirects; }
+        public int getMaxRetryDelayMs() { return maxRetryDelayMs; }
+        public boolean isSharedUpstream() { return sharedUpstream; }
+        public int getHubBufferSize() { return hubBufferSize; }
+        public int getHubBurstSize() { return hubBurstSize; }
+        public int getHubLingerMs() { return hubLingerMs; }
+        public boolean isSharedTranscode() { return sharedTranscode; }
+        public int getProbeCacheSize() { return probeCacheSize; }
+        public long getProbeCachePositiveTtlMs() { return probeCachePositiveTtlMs; }
+        public long getProbeCacheNegativeTtlMs() { return probeCacheNegativeTtlMs; }
+        public long getProbeCacheHostFailureTtlMs() { return probeCacheHostFailureTtlMs; }
+        public int getCircuitBreakerFailureThreshold() { return circuitBreakerFailureThreshold; }
+        public long getCircuitBreakerOpenMs() { return circuitBreakerOpenMs; }
+        public int getHostMaxConnects() { return hostMaxConnects; }
+        public long getHandoffTtlMs() { return handoffTtlMs; }
+        public boolean isConnectionPooling() { return connectionPooling; }
+        public int getPoolMaxIdleConnections() { return poolMaxIdleConnections; }
+        public long getPoolKeepAliveMs() { return poolKeepAliveMs; }
+        public int getTlsSessionCacheSize() { return tlsSessionCacheSize; }
+        public int getTlsSessionTimeoutSeconds() { return tlsSessionTimeoutSeconds; }
+        public boolean isNowPlayingEvents() { return nowPlayingEvents; }
+        public long getNowPlayingDebounceMs() { return nowPlayingDebounceMs; }
+        public int getNowPlayingMaxEventsPerSecond() { return nowPlayingMaxEventsPerSecond; }
+        public int getHistorySize() { return historySize; }
+        public int getHistoryMaxStations() { return historyMaxStations; }
+        public int getMonitorMaxStations() { return monitorMaxStations; }
+        public long getMonitorIdleMs() { return monitorIdleMs; }
+        public int getBatchLoadParallelism() { return batchLoadParallelism; }
+        public int getBatchLoadPerHost() { return batchLoadPerHost; }
+        public long getBatchLoadTimeoutMs() { return batchLoadTimeoutMs; }
+        public boolean isReadAhead() { return readAhead; }
+        public int getReadAheadMs() { return readAheadMs; }
+        public int getReadAheadBytes() { return readAheadBytes; }
+        public int getReadAheadLowWatermarkPercent() { return readAheadLowWatermarkPercent; }
+        public int getReadAheadHighWatermarkPercent() { return readAheadHighWatermarkPercent; }
+        public boolean isVirtualThreads() { return virtualThreads; }
+        public int getHlsPrefetchSegments() { return hlsPrefetchSegments; }
+        public int getHlsLiveEdgeSegments() { return hlsLiveEdgeSegments; }
+        public long getPlaylistCacheTtlMs() { return playlistCacheTtlMs; }
+        public long getMirrorRaceDelayMs() { return mirrorRaceDelayMs; }
+        public boolean isStallWatchdog() { return stallWatchdog; }
+        public long getStallWindowMs() { return stallWindowMs; }
+        public int getStallThresholdPercent() { return stallThresholdPercent; }
+        public boolean isOkioPipeline() { return okioPipeline; }
+        public boolean isMetrics() { return metrics; }
+        public int getMetricsMaxHosts() { return metricsMaxHosts; }
+
+        /**
+         * @return problems with the settings, empty if they are valid
+         */
+        public List<String> validate() {
+            List<String> errors = new ArrayList<>();
+
+            check(errors, connectionTimeout > 0, "connectionTimeout must be positive");
+            check(errors, readTimeout >= 0, "readTimeout must not be negative");
+            check(errors, maxRetries >= 0, "maxRetries must not be negative");
+            check(errors, retryDelay > 0, "retryDelay must be positive");
+            check(errors, maxRetryDelayMs >= retryDelay, "maxRetryDelayMs must be at least retryDelay");
+            check(errors, hubBufferSize >= 16 * 1024, "hubBufferSize must be at least 16384");
+            check(errors, hubBurstSize >= 0 && hubBurstSize <= hubBufferSize / 2, "hubBurstSize must be between 0 and half of hubBufferSize");
+            check(errors, hubLingerMs >= 0, "hubLingerMs must not be negative");
+            check(errors, probeCacheSize > 0, "probeCacheSize must be positive");
+            check(errors, circuitBreakerFailureThreshold >= 0, "circuitBreakerFailureThreshold must not be negative");
+            check(errors, circuitBreakerOpenMs > 0, "circuitBreakerOpenMs must be positive");
+            check(errors, hostMaxConnects >= 0, "hostMaxConnects must not be negative");
+            check(errors, handoffTtlMs >= 0, "handoffTtlMs must not be negative");
+            check(errors, poolMaxIdleConnections >= 0, "poolMaxIdleConnections must not be negative");
+            check(errors, poolKeepAliveMs > 0, "poolKeepAliveMs must be positive");
+            check(errors, tlsSessionCacheSize >= 0, "tlsSessionCacheSize must not be negative");
+            check(errors, tlsSessionTimeoutSeconds >= 0, "tlsSessionTimeoutSeconds must not be negative");
+            check(errors, nowPlayingDebounceMs >= 0, "nowPlayingDebounceMs must not be negative");
+            check(errors, nowPlayingMaxEventsPerSecond > 0, "nowPlayingMaxEventsPerSecond must be positive");
+            check(errors, historySize >= 0, "historySize must not be negative");
+            check(errors, historyMaxStations > 0, "historyMaxStations must be positive");
+            check(errors, monitorMaxStations >= 0, "monitorMaxStations must not be negative");
+            check(errors, monitorIdleMs > 0, "monitorIdleMs must be positive");
+            check(errors, batchLoadParallelism > 0, "batchLoadParallelism must be positive");
+            check(errors, batchLoadPerHost > 0, "batchLoadPerHost must be positive");
+            check(errors, batchLoadTimeoutMs > 0, "batchLoadTimeoutMs must be positive");
+            check(errors, readAheadMs > 0, "readAheadMs must be positive");
+            check(errors, readAheadBytes >= 0, "readAheadBytes must not be negative");
+            check(errors, readAheadLowWatermarkPercent > 0 && readAheadLowWatermarkPercent <= readAheadHighWatermarkPercent,
+                "readAheadLowWatermarkPercent must be positive and not above readAheadHighWatermarkPercent");
+            check(errors, readAheadHighWatermarkPercent <= 100, "readAheadHighWatermarkPercent must not exceed 100");
+            check(errors, hlsPrefetchSegments > 0, "hlsPrefetchSegments must be positive");
+            check(errors, hlsLiveEdgeSegments > 0, "hlsLiveEdgeSegments must be positive");
+            check(errors, mirrorRaceDelayMs >= 0, "mirrorRaceDelayMs must not be negative");
+            check(errors, stallWindowMs >= 2000, "stallWindowMs must be at least 2000");
+            check(errors, stallThresholdPercent > 0 && stallThresholdPercent <= 100, "stallThresholdPercent must be between 1 and 100");
+            check(errors, metricsMaxHosts >= 0, "metricsMaxHosts must not be negative");
+            check(errors, !virtualThreads || StreamExecutors.isVirtualThreadsSupported(),
+                "virtualThreads requires Java 21, running on " + Runtime.version().feature());
+
+            return errors;
+        }
+
+        private static void check(List<String> errors, boolean valid, String message) {
+            if (!valid) {
+                errors.add(message);
+            }
+        }
+
+        public Config copy() {
+            Config copy = new Config();
+            copy.apply(this, settingNames());
+            return copy;
+        }
+
+        /**
+         * Copy the named settings from another config.
+         */
+        public void apply(Config source, Collection<String> names) {
+            try {
+                for (String name : names) {
+                    Field field = Config.class.getField(name);
+                    field.set(this, field.get(source));
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Unknown setting: " + e.getMessage(), e);
+            }
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> values = new LinkedHashMap<>();
+            try {
+                for (String name : settingNames()) {
+                    values.put(name, Config.class.getField(name).get(this));
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+            return values;
+        }
+
+        public static List<String> settingNames() {
+            List<String> names = new ArrayList<>();
+            for (Field field : Config.class.getFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    names.add(field.getName());
+                }
+            }
+            return names;
+        }
+
+        public void setAutoReconnect(boolean autoReconnect) { this.autoReconnect = autoReconnect; }
+        public void setEnableMetadata(boolean enableMetadata) { this.enableMetadata = enableMetadata; }
+        public void setConnectionTimeout(int connectionTimeout) { this.connectionTimeout = connectionTimeout; }
+        public void setReadTimeout(int readTimeout) { this.readTimeout = readTimeout; }
+        public void setMaxRetries(int maxRetries) { this.maxRetries = maxRetries; }
+        public void setRetryDelay(int retryDelay) { this.retryDelay = retryDelay; }
+        public void setFollowRedirects(boolean followRedirects) { this.followRedirects = followRedirects; }
+        public void setMaxRetryDelayMs(int maxRetryDelayMs) { this.maxRetryDelayMs = maxRetryDelayMs; }
+        public void setSharedUpstream(boolean sharedUpstream) { this.sharedUpstream = sharedUpstream; }
+        public void setHubBufferSize(int hubBufferSize) { this.hubBufferSize = hubBufferSize; }
+        public void setHubBurstSize(int hubBurstSize) { this.hubBurstSize = hubBurstSize; }
+        public void setHubLingerMs(int hubLingerMs) { this.hubLingerMs = hubLingerMs; }
+        public void setSharedTranscode(boolean sharedTranscode) { this.sharedTranscode = sharedTranscode; }
+        public void setProbeCacheSize(int probeCacheSize) { this.probeCacheSize = probeCacheSize; }
+        public void setProbeCachePositiveTtlMs(long probeCachePositiveTtlMs) { this.probeCachePositiveTtlMs = probeCachePositiveTtlMs; }
+        public void setProbeCacheNegativeTtlMs(long probeCacheNegativeTtlMs) { this.probeCacheNegativeTtlMs = probeCacheNegativeTtlMs; }
+        public void setProbeCacheHostFailureTtlMs(long probeCacheHostFailureTtlMs) { this.probeCacheHostFailureTtlMs = probeCacheHostFailureTtlMs; }
+        public void setCircuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) { this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold; }
+        public void setCircuitBreakerOpenMs(long circuitBreakerOpenMs) { this.circuitBreakerOpenMs = circuitBreakerOpenMs; }
+        public void setHostMaxConnects(int hostMaxConnects) { this.hostMaxConnects = hostMaxConnects; }
+        public void setHandoffTtlMs(long handoffTtlMs) { this.handoffTtlMs = handoffTtlMs; }
+        public void setConnectionPooling(boolean connectionPooling) { this.connectionPooling = connectionPooling; }
+        public void setPoolMaxIdleConnections(int poolMaxIdleConnections) { this.poolMaxIdleConnections = poolMaxIdleConnections; }
+        public void setPoolKeepAliveMs(long poolKeepAliveMs) { this.poolKeepAliveMs = poolKeepAliveMs; }
+        public void setTlsSessionCacheSize(int tlsSessionCacheSize) { this.tlsSessionCacheSize = tlsSessionCacheSize; }
+        public void setTlsSessionTimeoutSeconds(int tlsSessionTimeoutSeconds) { this.tlsSessionTimeoutSeconds = tlsSessionTimeoutSeconds; }
+        public void setNowPlayingEvents(boolean nowPlayingEvents) { this.nowPlayingEvents = nowPlayingEvents; }
+        public void setNowPlayingDebounceMs(long nowPlayingDebounceMs) { this.nowPlayingDebounceMs = nowPlayingDebounceMs; }
+        public void setNowPlayingMaxEventsPerSecond(int nowPlayingMaxEventsPerSecond) { this.nowPlayingMaxEventsPerSecond = nowPlayingMaxEventsPerSecond; }
+        public void setHistorySize(int historySize) { this.historySize = historySize; }
+        public void setHistoryMaxStations(int historyMaxStations) { this.historyMaxStations = historyMaxStations; }
+        public void setMonitorMaxStations(int monitorMaxStations) { this.monitorMaxStations = monitorMaxStations; }
+        public void setMonitorIdleMs(long monitorIdleMs) { this.monitorIdleMs = monitorIdleMs; }
+        public void setBatchLoadParallelism(int batchLoadParallelism) { this.batchLoadParallelism = batchLoadParallelism; }
+        public void setBatchLoadPerHost(int batchLoadPerHost) { this.batchLoadPerHost = batchLoadPerHost; }
+        public void setBatchLoadTimeoutMs(long batchLoadTimeoutMs) { this.batchLoadTimeoutMs = batchLoadTimeoutMs; }
+        public void setReadAhead(boolean readAhead) { this.readAhead = readAhead; }
+        public void setReadAheadMs(int readAheadMs) { this.readAheadMs = readAheadMs; }
+        public void setReadAheadBytes(int readAheadBytes) { this.readAheadBytes = readAheadBytes; }
+        public void setReadAheadLowWatermarkPercent(int readAheadLowWatermarkPercent) { this.readAheadLowWatermarkPercent = readAheadLowWatermarkPercent; }
+        public void setReadAheadHighWatermarkPercent(int readAheadHighWatermarkPercent) { this.readAheadHighWatermarkPercent = readAheadHighWatermarkPercent; }
+        public void setVirtualThreads(boolean virtualThreads) { this.virtualThreads = virtualThreads; }
+        public void setHlsPrefetchSegments(int hlsPrefetchSegments) { this.hlsPrefetchSegments = hlsPrefetchSegments; }
+        public void setHlsLiveEdgeSegments(int hlsLiveEdgeSegments) { this.hlsLiveEdgeSegments = hlsLiveEdgeSegments; }
+        public void setPlaylistCacheTtlMs(long playlistCacheTtlMs) { this.playlistCacheTtlMs = playlistCacheTtlMs; }
+        public void setMirrorRaceDelayMs(long mirrorRaceDelayMs) { this.mirrorRaceDelayMs = mirrorRaceDelayMs; }
+        public void setStallWatchdog(boolean stallWatchdog) { this.stallWatchdog = stallWatchdog; }
+        public void setStallWindowMs(long stallWindowMs) { this.stallWindowMs = stallWindowMs; }
+        public void setStallThresholdPercent(int stallThresholdPercent) { this.stallThresholdPercent = stallThresholdPercent; }
+        public void setOkioPipeline(boolean okioPipeline) { this.okioPipeline = okioPipeline; }
+        public void setMetrics(boolean metrics) { this.metrics = metrics; }
+        public void setMetricsMaxHosts(int metricsMaxHosts) { this.metricsMaxHosts = metricsMaxHosts; }
     }
 }
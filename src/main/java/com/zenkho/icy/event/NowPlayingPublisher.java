@@ -0,0 +1,188 @@
+package com.zenkho.icy.event;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.metadata.IcyMetadataParser.IcyMetadata;
+import com.zenkho.icy.metadata.TrackMetadataListener;
+import dev.arbjerg.lavalink.api.IPlayer;
+import dev.arbjerg.lavalink.api.ISocketContext;
+import dev.arbjerg.lavalink.api.ISocketServer;
+import kotlinx.serialization.json.JsonElement;
+import kotlinx.serialization.json.JsonElementKt;
+import kotlinx.serialization.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Pushes stream title changes to the Lavalink clients playing the track.
+ * <p>
+ * Updates are debounced and coalesced per player, so only the latest title of a burst
+ * is sent. Each WebSocket session has its own token bucket, and events that exceed it
+ * are retried later rather than dropped, so the client always ends up with the
+ * current title.
+ */
+public class NowPlayingPublisher implements TrackMetadataListener {
+
+    private static final Logger log = LoggerFactory.getLogger(NowPlayingPublisher.class);
+
+    public static final String EVENT_TYPE = "IcyNowPlayingEvent";
+
+    private final Supplier<ISocketServer> socketServer;
+    private final Config config;
+    private final ScheduledExecutorService scheduler;
+    private final Map<PlayerKey, PendingEvent> pending = new ConcurrentHashMap<>();
+    private final Map<String, RateLimiter> sessionLimits = new ConcurrentHashMap<>();
+
+    public NowPlayingPublisher(Supplier<ISocketServer> socketServer, Config config, ScheduledExecutorService scheduler) {
+        this.socketServer = socketServer;
+        this.config = config;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void onTrackMetadata(AudioTrack track, IcyMetadata metadata) {
+        if (!config.isNowPlayingEvents()) {
+            return;
+        }
+
+        ISocketServer server = socketServer.get();
+        if (server == null) {
+            return;
+        }
+
+        for (ISocketContext context : server.getSessions().values()) {
+            for (IPlayer player : context.getPlayers().values()) {
+                if (player.getTrack() != track) {
+                    continue;
+                }
+
+                PlayerKey key = new PlayerKey(context.getSessionId(), player.getGuildId());
+
+                // Only the first update of a burst schedules a flush, later ones just replace it
+                if (pending.put(key, new PendingEvent(context, player, track, metadata)) == null) {
+                    schedule(key, config.getNowPlayingDebounceMs());
+                }
+            }
+        }
+
+        sessionLimits.keySet().retainAll(server.getSessions().keySet());
+    }
+
+    private void schedule(PlayerKey key, long delayMs) {
+        scheduler.schedule(() -> flush(key), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush(PlayerKey key) {
+        PendingEvent event = pending.get(key);
+        if (event == null) {
+            return;
+        }
+
+        if (event.context.getState() == ISocketContext.State.OPEN) {
+            RateLimiter limiter = sessionLimits.computeIfAbsent(key.sessionId, id -> new RateLimiter());
+            if (!limiter.tryAcquire(config.getNowPlayingMaxEventsPerSecond())) {
+                // Session is over its budget, try again with whatever is latest by then
+                schedule(key, 1000L / Math.max(1, config.getNowPlayingMaxEventsPerSecond()));
+                return;
+            }
+
+            // Player may have moved on to another track while the event was pending
+            if (event.player.getTrack() == event.track) {
+                send(event.context, event.player, event.track, event.metadata);
+            }
+        }
+
+        // Keep a title that arrived during the flush for the next round
+        if (!pending.remove(key, event)) {
+            schedule(key, config.getNowPlayingDebounceMs());
+        }
+    }
+
+    private void send(ISocketContext context, IPlayer player, AudioTrack track, IcyMetadata metadata) {
+        Map<String, JsonElement> fields = new LinkedHashMap<>();
+        fields.put("op", JsonElementKt.JsonPrimitive("event"));
+        fields.put("type", JsonElementKt.JsonPrimitive(EVENT_TYPE));
+        fields.put("guildId", JsonElementKt.JsonPrimitive(String.valueOf(player.getGuildId())));
+        fields.put("identifier", JsonElementKt.JsonPrimitive(track.getIdentifier()));
+        fields.put("title", JsonElementKt.JsonPrimitive(metadata.getStreamTitle()));
+        fields.put("url", JsonElementKt.JsonPrimitive(metadata.getStreamUrl()));
+
+        try {
+            context.sendMessage(JsonObject.Companion.serializer(), new JsonObject(fields));
+            log.debug("Sent now playing event to session {} for guild {}: {}",
+                context.getSessionId(), player.getGuildId(), metadata.getStreamTitle());
+        } catch (Exception e) {
+            log.warn("Failed to send now playing event to session {}: {}", context.getSessionId(), e.getMessage());
+        }
+    }
+
+    private static class PlayerKey {
+        private final String sessionId;
+        private final long guildId;
+
+        PlayerKey(String sessionId, long guildId) {
+            this.sessionId = sessionId;
+            this.guildId = guildId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PlayerKey)) return false;
+            PlayerKey other = (PlayerKey) o;
+            return guildId == other.guildId && sessionId.equals(other.sessionId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sessionId, guildId);
+        }
+    }
+
+    private static class PendingEvent {
+        private final ISocketContext context;
+        private final IPlayer player;
+        private final AudioTrack track;
+        private final IcyMetadata metadata;
+
+        PendingEvent(ISocketContext context, IPlayer player, AudioTrack track, IcyMetadata metadata) {
+            this.context = context;
+            this.player = player;
+            this.track = track;
+            this.metadata = metadata;
+        }
+    }
+
+    // Token bucket refilled continuously at the configured rate, with one second of burst
+    private static class RateLimiter {
+        private double tokens = -1;
+        private long lastRefill = System.nanoTime();
+
+        synchronized boolean tryAcquire(int perSecond) {
+            long now = System.nanoTime();
+
+            if (tokens < 0) {
+                tokens = perSecond;
+            } else {
+                tokens = Math.min(perSecond, tokens + (now - lastRefill) / 1_000_000_000.0 * perSecond);
+            }
+
+            lastRefill = now;
+
+            if (tokens < 1) {
+                return false;
+            }
+
+            tokens--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.zenkho.icy.hls;
+
+import okhttp3.HttpUrl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parsed HLS playlist, either a master playlist listing variants or a media playlist
+ * listing segments. Only the tags needed to play live audio are understood.
+ */
+public class HlsPlaylist {
+
+    private static final long DEFAULT_TARGET_DURATION_MS = 10000;
+
+    private final List<Variant> variants;
+    private final List<Segment> segments;
+    private final long targetDurationMs;
+    private final boolean endList;
+    private final boolean encrypted;
+    private final boolean fragmentedMp4;
+
+    private HlsPlaylist(List<Variant> variants, List<Segment> segments, long targetDurationMs,
+                        boolean endList, boolean encrypted, boolean fragmentedMp4) {
+        this.variants = variants;
+        this.segments = segments;
+        this.targetDurationMs = targetDurationMs;
+        this.endList = endList;
+        this.encrypted = encrypted;
+        this.fragmentedMp4 = fragmentedMp4;
+    }
+
+    /**
+     * @param base URL the playlist was fetched from, relative URIs are resolved against it
+     */
+    public static HlsPlaylist parse(HttpUrl base, String body) throws IOException {
+        String[] lines = body.split("\r?\n");
+        if (lines.length == 0 || !lines[0].trim().startsWith("#EXTM3U")) {
+            throw new IOException("Not an HLS playlist: " + base);
+        }
+
+        List<Variant> variants = new ArrayList<>();
+        List<Segment> segments = new ArrayList<>();
+        long targetDurationMs = DEFAULT_TARGET_DURATION_MS;
+        long sequence = 0;
+        boolean endList = false;
+        boolean encrypted = false;
+        boolean fragmentedMp4 = false;
+        long pendingBandwidth = -1;
+        long pendingDurationMs = 0;
+
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i].trim();
+
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            if (line.startsWith("#")) {
+                if (line.startsWith("#EXT-X-TARGETDURATION:")) {
+                    targetDurationMs = (long) (parseDouble(value(line), 10) * 1000);
+                } else if (line.startsWith("#EXT-X-MEDIA-SEQUENCE:")) {
+                    sequence = (long) parseDouble(value(line), 0);
+                } else if (line.startsWith("#EXTINF:")) {
+                    String info = value(line);
+                    int comma = info.indexOf(',');
+                    pendingDurationMs = (long) (parseDouble(comma >= 0 ? info.substring(0, comma) : info, 0) * 1000);
+                } else if (line.startsWith("#EXT-X-STREAM-INF:")) {
+                    String bandwidth = attribute(value(line), "BANDWIDTH");
+                    pendingBandwidth = bandwidth != null ? (long) parseDouble(bandwidth, 0) : 0;
+                } else if (line.startsWith("#EXT-X-KEY:")) {
+                    String method = attribute(value(line), "METHOD");
+                    encrypted |= method != null && !"NONE".equalsIgnoreCase(method);
+                } else if (line.startsWith("#EXT-X-MAP:")) {
+                    fragmentedMp4 = true;
+                } else if (line.equals("#EXT-X-ENDLIST")) {
+                    endList = true;
+                }
+                continue;
+            }
+
+            HttpUrl uri = base.resolve(line);
+            if (uri == null) {
+                continue;
+            }
+
+            if (pendingBandwidth >= 0) {
+                variants.add(new Variant(uri, pendingBandwidth));
+                pendingBandwidth = -1;
+            } else {
+                segments.add(new Segment(uri, sequence++, pendingDurationMs));
+                pendingDurationMs = 0;
+            }
+        }
+
+        return new HlsPlaylist(
+            Collections.unmodifiableList(variants),
+            Collections.unmodifiableList(segments),
+            Math.max(1000, targetDurationMs),
+            endList,
+            encrypted,
+            fragmentedMp4
+        );
+    }
+
+    public boolean isMaster() {
+        return !variants.isEmpty();
+    }
+
+    public List<Variant> getVariants() {
+        return variants;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public long getTargetDurationMs() {
+        return targetDurationMs;
+    }
+
+    public boolean isEndList() {
+        return endList;
+    }
+
+    public boolean isEncrypted() {
+        return encrypted;
+    }
+
+    public boolean isFragmentedMp4() {
+        return fragmentedMp4;
+    }
+
+    /**
+     * @return variant with the highest bandwidth, the best audio quality for radio playlists
+     */
+    public Variant getBestVariant() {
+        Variant best = null;
+        for (Variant variant : variants) {
+            if (best == null || variant.bandwidth > best.bandwidth) {
+                best = variant;
+            }
+        }
+        return best;
+    }
+
+    private static String value(String line) {
+        return line.substring(line.indexOf(':') + 1).trim();
+    }
+
+    private static double parseDouble(String value, double fallback) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    // Attribute lists are NAME=value pairs separated by commas, values may be quoted
+    private static String attribute(String attributes, String name) {
+        int position = 0;
+
+        while (position < attributes.length()) {
+            int equals = attributes.indexOf('=', position);
+            if (equals < 0) {
+                return null;
+            }
+
+            String key = attributes.substring(position, equals).trim();
+            int end;
+            String value;
+
+            if (equals + 1 < attributes.length() && attributes.charAt(equals + 1) == '"') {
+                int closing = attributes.indexOf('"', equals + 2);
+                closing = closing < 0 ? attributes.length() : closing;
+                value = attributes.substring(equals + 2, closing);
+                end = attributes.indexOf(',', closing);
+            } else {
+                end = attributes.indexOf(',', equals);
+                value = attributes.substring(equals + 1, end < 0 ? attributes.length() : end).trim();
+            }
+
+            if (key.equalsIgnoreCase(name)) {
+                return value;
+            }
+
+            if (end < 0) {
+                return null;
+            }
+            position = end + 1;
+        }
+
+        return null;
+    }
+
+    public static class Variant {
+        private final HttpUrl uri;
+        private final long bandwidth;
+
+        Variant(HttpUrl uri, long bandwidth) {
+            this.uri = uri;
+            this.bandwidth = bandwidth;
+        }
+
+        public HttpUrl getUri() {
+            return uri;
+        }
+
+        public long getBandwidth() {
+            return bandwidth;
+        }
+    }
+
+    public static class Segment {
+        private final HttpUrl uri;
+        private final long sequence;
+        private final long durationMs;
+
+        Segment(HttpUrl uri, long sequence, long durationMs) {
+            this.uri = uri;
+            this.sequence = sequence;
+            this.durationMs = durationMs;
+        }
+
+        public HttpUrl getUri() {
+            return uri;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package com.zenkho.icy.hls;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.stream.RequestPriority;
+import com.zenkho.icy.stream.StreamExecutors;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live HLS playlist played as one continuous byte stream.
+ * <p>
+ * The media playlist is refreshed on the scheduler every target duration (half of it when
+ * nothing new appeared, as the spec suggests). New segments are downloaded ahead of the
+ * reader on the I/O pool over pooled connections, up to a bounded number, and handed out
+ * in sequence order. If the reader falls out of the playlist window after a stall, it
+ * resumes at the live edge instead of failing.
+ */
+public class HlsSegmentStream extends InputStream {
+
+    private static final Logger log = LoggerFactory.getLogger(HlsSegmentStream.class);
+
+    private final String url;
+    private final OkHttpClient httpClient;
+    private final Config config;
+    private final StreamExecutors executors;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final ArrayDeque<PendingSegment> queue = new ArrayDeque<>();
+    private final byte[] single = new byte[1];
+
+    private HttpUrl mediaPlaylistUrl;
+    private List<HlsPlaylist.Segment> knownSegments = Collections.emptyList();
+    private long nextSequence = -1;
+    private boolean endList;
+    private int refreshFailures;
+    private IOException failure;
+    private ScheduledFuture<?> refreshTask;
+    private volatile boolean closed;
+
+    private byte[] current;
+    private int currentPosition;
+
+    public HlsSegmentStream(String url, OkHttpClient httpClient, Config config, StreamExecutors executors) {
+        this.url = url;
+        this.httpClient = httpClient;
+        this.config = config;
+        this.executors = executors;
+    }
+
+    /**
+     * Fetch the playlist, resolve a master playlist to its best variant and start
+     * prefetching at the live edge.
+     */
+    public void start() throws IOException {
+        HttpUrl playlistUrl = HttpUrl.parse(url);
+        if (playlistUrl == null) {
+            throw new IOException("Invalid HLS URL: " + url);
+        }
+
+        HlsPlaylist playlist = fetchPlaylist(playlistUrl);
+
+        if (playlist.isMaster()) {
+            HlsPlaylist.Variant variant = playlist.getBestVariant();
+            log.debug("HLS master playlist {} resolved to variant {} ({} bps)", url, variant.getUri(), variant.getBandwidth());
+            playlistUrl = variant.getUri();
+            playlist = fetchPlaylist(playlistUrl);
+        }
+
+        if (playlist.isEncrypted()) {
+            throw new IOException("Encrypted HLS streams are not supported: " + url);
+        } else if (playlist.isFragmentedMp4()) {
+            throw new IOException("Fragmented MP4 HLS streams are not supported: " + url);
+        }
+
+        mediaPlaylistUrl = playlistUrl;
+        boolean grew = update(playlist);
+        scheduleRefresh(playlist, grew);
+
+        log.info("Started HLS stream {} (target duration {}ms, {} segments)",
+            url, playlist.getTargetDurationMs(), playlist.getSegments().size());
+    }
+
+    @Override
+    public int read() throws IOException {
+        int result;
+        do {
+            result = read(single, 0, 1);
+        } while (result == 0);
+
+        return result < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        while (current == null || currentPosition >= current.length) {
+            if (!nextSegment()) {
+                return -1;
+            }
+        }
+
+        int read = Math.min(len, current.length - currentPosition);
+        System.arraycopy(current, currentPosition, b, off, read);
+        currentPosition += read;
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return current != null ? current.length - currentPosition : 0;
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            if (refreshTask != null) {
+                refreshTask.cancel(false);
+            }
+
+            for (PendingSegment pending : queue) {
+                pending.data.cancel(false);
+            }
+            queue.clear();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        log.debug("Closed HLS stream {}", url);
+    }
+
+    /**
+     * @return false at the end of a finished (VOD) playlist
+     */
+    private boolean nextSegment() throws IOException {
+        PendingSegment pending;
+
+        lock.lock();
+        try {
+            while (queue.isEmpty()) {
+                if (closed) {
+                    throw new IOException("Stream is closed");
+                } else if (failure != null) {
+                    throw failure;
+                } else if (endList && !hasKnownSegment(nextSequence)) {
+                    return false;
+                }
+
+                changed.await();
+            }
+
+            pending = queue.poll();
+            fillQueue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for HLS segment");
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            current = pending.data.get();
+            currentPosition = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading HLS segment");
+        } catch (CancellationException e) {
+            throw new IOException("Stream is closed");
+        } catch (ExecutionException e) {
+            // A lost segment is a short gap, not a reason to stop the station
+            log.warn("Skipping HLS segment {} of {}: {}", pending.sequence, url, e.getCause().getMessage());
+            current = null;
+        }
+
+        return true;
+    }
+
+    private void scheduleRefresh(HlsPlaylist playlist, boolean grew) {
+        if (!playlist.isEndList()) {
+            scheduleRefresh(grew ? playlist.getTargetDurationMs() : playlist.getTargetDurationMs() / 2);
+        }
+    }
+
+    private void scheduleRefresh(long delay) {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            refreshTask = executors.getScheduler().schedule(
+                () -> executors.getIo().execute(this::refresh),
+                delay,
+                TimeUnit.MILLISECONDS
+            );
+        } catch (RejectedExecutionException e) {
+            fail(new IOException("Plugin is shutting down", e));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refresh() {
+        if (closed) {
+            return;
+        }
+
+        HlsPlaylist playlist;
+        try {
+            playlist = fetchPlaylist(mediaPlaylistUrl);
+            refreshFailures = 0;
+        } catch (IOException e) {
+            refreshFailures++;
+            if (refreshFailures > config.getMaxRetries()) {
+                fail(new IOException("HLS playlist refresh failed " + refreshFailures + " times: " + e.getMessage(), e));
+                return;
+            }
+
+            log.debug("Failed to refresh HLS playlist {} (attempt {}): {}", mediaPlaylistUrl, refreshFailures, e.getMessage());
+            scheduleRefresh(config.getRetryDelay());
+            return;
+        }
+
+        boolean grew = update(playlist);
+        scheduleRefresh(playlist, grew);
+    }
+
+    /**
+     * @return true if the playlist contained segments that were not known before
+     */
+    private boolean update(HlsPlaylist playlist) {
+        List<HlsPlaylist.Segment> segments = playlist.getSegments();
+
+        lock.lock();
+        try {
+            long previousLast = knownSegments.isEmpty() ? -1 : knownSegments.get(knownSegments.size() - 1).getSequence();
+            knownSegments = segments;
+            endList = playlist.isEndList();
+
+            if (!segments.isEmpty()) {
+                long first = segments.get(0).getSequence();
+                long last = segments.get(segments.size() - 1).getSequence();
+
+                if (nextSequence < 0) {
+                    nextSequence = liveEdge(first, last, playlist.isEndList());
+                } else if (nextSequence < first || nextSequence > last + 1) {
+                    // Stalled long enough to fall out of the window, or the sequence was reset
+                    long edge = liveEdge(first, last, playlist.isEndList());
+                    log.info("HLS stream {} lost position at segment {}, resuming at live edge {}", url, nextSequence, edge);
+                    nextSequence = edge;
+                }
+            }
+
+            fillQueue();
+            changed.signalAll();
+
+            return !segments.isEmpty() && segments.get(segments.size() - 1).getSequence() > previousLast;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long liveEdge(long first, long last, boolean finished) {
+        if (finished) {
+            return first;
+        }
+
+        return Math.max(first, last - Math.max(1, config.getHlsLiveEdgeSegments()) + 1);
+    }
+
+    // Called with the lock held
+    private void fillQueue() {
+        while (!closed && queue.size() < Math.max(1, config.getHlsPrefetchSegments())) {
+            HlsPlaylist.Segment segment = findKnownSegment(nextSequence);
+            if (segment == null) {
+                return;
+            }
+
+            CompletableFuture<byte[]> data = new CompletableFuture<>();
+            try {
+                executors.getIo().execute(() -> download(segment, data));
+            } catch (RejectedExecutionException e) {
+                data.completeExceptionally(new IOException("Plugin is shutting down", e));
+            }
+
+            queue.add(new PendingSegment(segment.getSequence(), data));
+            nextSequence++;
+        }
+    }
+
+    private boolean hasKnownSegment(long sequence) {
+        return findKnownSegment(sequence) != null;
+    }
+
+    private HlsPlaylist.Segment findKnownSegment(long sequence) {
+        if (knownSegments.isEmpty()) {
+            return null;
+        }
+
+        long index = sequence - knownSegments.get(0).getSequence();
+        return index >= 0 && index < knownSegments.size() ? knownSegments.get((int) index) : null;
+    }
+
+    private void download(HlsPlaylist.Segment segment, CompletableFuture<byte[]> data) {
+        if (data.isDone()) {
+            return;
+        }
+
+        Request request = new Request.Builder().url(segment.getUri()).tag(RequestPriority.class, RequestPriority.PLAYBACK).build();
+
+        try (Response response = httpClient.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("HTTP " + response.code() + " for segment " + segment.getUri());
+            }
+
+            data.complete(body.bytes());
+        } catch (Exception e) {
+            data.completeExceptionally(e);
+        }
+    }
+
+    private HlsPlaylist fetchPlaylist(HttpUrl playlistUrl) throws IOException {
+        Request request = new Request.Builder().url(playlistUrl).tag(RequestPriority.class, RequestPriority.PLAYBACK).build();
+
+        try (Response response = httpClient.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("HTTP " + response.code() + " for playlist " + playlistUrl);
+            }
+
+            // Redirects change the base relative segment URIs resolve against
+            return HlsPlaylist.parse(response.request().url(), body.string());
+        }
+    }
+
+    private void fail(IOException cause) {
+        lock.lock();
+        try {
+            failure = cause;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class PendingSegment {
+        private final long sequence;
+        private final CompletableFuture<byte[]> data;
+
+        PendingSegment(long sequence, CompletableFuture<byte[]> data) {
+            this.sequence = sequence;
+            this.data = data;
+        }
+    }
+}
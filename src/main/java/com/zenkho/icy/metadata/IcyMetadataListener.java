@@ -0,0 +1,8 @@
+package com.zenkho.icy.metadata;
+
+/**
+ * Receives metadata parsed from an ICY stream. Only called when the stream title changes.
+ */
+public interface IcyMetadataListener {
+    void onMetadata(IcyMetadataParser.IcyMetadata metadata);
+}
@@ -3,44 +3,38 @@ package com.zenkho.icy.metadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.charset.StandardCharsets;
 
 public class IcyMetadataParser {
 
     private static final Logger log = LoggerFactory.getLogger(IcyMetadataParser.class);
-    
-    private static final Pattern STREAM_TITLE_PATTERN = Pattern.compile("StreamTitle='([^']*)';");
-    private static final Pattern STREAM_URL_PATTERN = Pattern.compile("StreamUrl='([^']*)';");
 
-    public String parseStreamTitle(String metadata) {
-        if (metadata == null || metadata.isEmpty()) {
-            return null;
-        }
+    /**
+     * Largest possible metadata block: the length byte is multiplied by 16.
+     */
+    public static final int MAX_METADATA_LENGTH = 255 * 16;
+
+    private static final String STREAM_TITLE_KEY = "StreamTitle='";
+    private static final String STREAM_URL_KEY = "StreamUrl='";
+    private static final String VALUE_TERMINATOR = "';";
+
+    private static final byte[] STREAM_TITLE_KEY_BYTES = STREAM_TITLE_KEY.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STREAM_URL_KEY_BYTES = STREAM_URL_KEY.getBytes(StandardCharsets.US_ASCII);
 
-        Matcher matcher = STREAM_TITLE_PATTERN.matcher(metadata);
-        if (matcher.find()) {
-            String title = matcher.group(1);
+    public String parseStreamTitle(String metadata) {
+        String title = findValue(metadata, STREAM_TITLE_KEY);
+        if (title != null) {
             log.debug("Parsed stream title: {}", title);
-            return title;
         }
-
-        return null;
+        return title;
     }
 
     public String parseStreamUrl(String metadata) {
-        if (metadata == null || metadata.isEmpty()) {
-            return null;
-        }
-
-        Matcher matcher = STREAM_URL_PATTERN.matcher(metadata);
-        if (matcher.find()) {
-            String url = matcher.group(1);
+        String url = findValue(metadata, STREAM_URL_KEY);
+        if (url != null) {
             log.debug("Parsed stream URL: {}", url);
-            return url;
         }
-
-        return null;
+        return url;
     }
 
     public IcyMetadata parse(String metadata) {
@@ -58,6 +52,96 @@ public class IcyMetadataParser {
         return new IcyMetadata(title, url);
     }
 
+    private static String findValue(String metadata, String key) {
+        if (metadata == null || metadata.isEmpty()) {
+            return null;
+        }
+
+        int keyIndex = metadata.indexOf(key);
+        if (keyIndex < 0) {
+            return null;
+        }
+
+        int start = keyIndex + key.length();
+        int end = metadata.indexOf(VALUE_TERMINATOR, start);
+        return end < 0 ? null : metadata.substring(start, end);
+    }
+
+    /*
+     * Byte-level scanning for the demux hot path. Values are located without creating
+     * Strings; the result is the value range packed as (start << 32 | end), or -1.
+     */
+
+    /**
+     * @return range of the StreamTitle value in the raw block, or -1 if absent
+     */
+    public static long findStreamTitle(byte[] data, int length) {
+        return findValue(data, length, STREAM_TITLE_KEY_BYTES);
+    }
+
+    /**
+     * @return range of the StreamUrl value in the raw block, or -1 if absent
+     */
+    public static long findStreamUrl(byte[] data, int length) {
+        return findValue(data, length, STREAM_URL_KEY_BYTES);
+    }
+
+    public static int valueStart(long range) {
+        return (int) (range >>> 32);
+    }
+
+    public static int valueEnd(long range) {
+        return (int) range;
+    }
+
+    /**
+     * @return length of the block without its trailing NUL padding
+     */
+    public static int trimmedLength(byte[] data, int length) {
+        while (length > 0 && data[length - 1] == 0) {
+            length--;
+        }
+        return length;
+    }
+
+    private static long findValue(byte[] data, int length, byte[] key) {
+        int keyIndex = indexOf(data, 0, length, key);
+        if (keyIndex < 0) {
+            return -1;
+        }
+
+        int start = keyIndex + key.length;
+        for (int i = start; i < length - 1; i++) {
+            if (data[i] == '\'' && data[i + 1] == ';') {
+                return ((long) start << 32) | i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int indexOf(byte[] data, int from, int length, byte[] needle) {
+        int last = length - needle.length;
+        byte first = needle[0];
+
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (data[i] != first) {
+                continue;
+            }
+
+            for (int j = 1; j < needle.length; j++) {
+                if (data[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+
+            return i;
+        }
+
+        return -1;
+    }
+
     public static class IcyMetadata {
         private final String streamTitle;
         private final String streamUrl;
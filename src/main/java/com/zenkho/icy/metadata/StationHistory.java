@@ -0,0 +1,146 @@
+package com.zenkho.icy.metadata;
+
+import com.zenkho.icy.metadata.IcyMetadataParser.IcyMetadata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recent titles of every station played on this node, newest first.
+ * <p>
+ * Each station keeps a fixed ring of (timestamp, title, url) that all its players record
+ * into; a title repeated by another player or after a reconnect is only stored once.
+ * When the station limit is reached, the one that changed title least recently is dropped.
+ */
+public class StationHistory {
+
+    private final int size;
+    private final Map<String, Ring> stations;
+
+    /**
+     * @param size titles kept per station, 0 to keep none
+     * @param maxStations stations kept
+     */
+    public StationHistory(int size, int maxStations) {
+        this.size = size;
+        this.stations = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Ring> eldest) {
+                return size() > maxStations;
+            }
+        };
+    }
+
+    /**
+     * Record the metadata of a station if its title differs from the last one recorded.
+     */
+    public void record(String station, IcyMetadata metadata) {
+        String title = metadata.getStreamTitle();
+        if (size == 0 || title == null || title.isEmpty()) {
+            return;
+        }
+
+        synchronized (stations) {
+            // Re-inserted so the map stays ordered by last update
+            Ring ring = stations.remove(station);
+            if (ring == null) {
+                ring = new Ring(size);
+            }
+            stations.put(station, ring);
+
+            ring.add(System.currentTimeMillis(), title, metadata.getStreamUrl());
+        }
+    }
+
+    /**
+     * @return up to {@code limit} titles of the station, newest first, empty if none were recorded
+     */
+    public List<Entry> get(String station, int limit) {
+        synchronized (stations) {
+            Ring ring = stations.get(station);
+            return ring != null ? ring.newest(limit) : Collections.emptyList();
+        }
+    }
+
+    public int getStationCount() {
+        synchronized (stations) {
+            return stations.size();
+        }
+    }
+
+    public static class Entry {
+        private final long timestamp;
+        private final String title;
+        private final String url;
+
+        Entry(long timestamp, String title, String url) {
+            this.timestamp = timestamp;
+            this.title = title;
+            this.url = url;
+        }
+
+        /**
+         * @return when the title was first seen, in epoch milliseconds
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        /**
+         * @return StreamUrl sent with the title, null if the station sent none
+         */
+        public String getUrl() {
+            return url;
+        }
+    }
+
+    private static class Ring {
+        private final long[] timestamps;
+        private final String[] titles;
+        private final String[] urls;
+        private int next;
+        private int count;
+
+        Ring(int size) {
+            this.timestamps = new long[size];
+            this.titles = new String[size];
+            this.urls = new String[size];
+        }
+
+        void add(long timestamp, String title, String url) {
+            if (count > 0 && title.equals(titles[index(0)])) {
+                return;
+            }
+
+            timestamps[next] = timestamp;
+            titles[next] = title;
+            urls[next] = url;
+            next = (next + 1) % titles.length;
+            count = Math.min(count + 1, titles.length);
+        }
+
+        List<Entry> newest(int limit) {
+            int total = Math.min(limit, count);
+            List<Entry> entries = new ArrayList<>(total);
+
+            for (int i = 0; i < total; i++) {
+                int index = index(i);
+                entries.add(new Entry(timestamps[index], titles[index], urls[index]));
+            }
+
+            return entries;
+        }
+
+        // Position of the i-th newest entry
+        private int index(int age) {
+            return (next - 1 - age + titles.length) % titles.length;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.zenkho.icy.metadata;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+
+/**
+ * Receives title changes for a playing track.
+ */
+public interface TrackMetadataListener {
+    void onTrackMetadata(AudioTrack track, IcyMetadataParser.IcyMetadata metadata);
+}
@@ -0,0 +1,304 @@
+package com.zenkho.icy.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Node-wide stream metrics, published as {@code icy_*} series next to Lavalink's own.
+ * <p>
+ * Tags are kept bounded: nothing is tagged by station URL, per-stream throughput is
+ * recorded into a distribution instead, and only the first {@code metricsMaxHosts}
+ * upstream hosts get their own tag, later ones are counted as {@code other}.
+ * Meters used on the read path are registered once, so recording never looks them up.
+ */
+public class IcyMetrics {
+
+    static final String OTHER_HOST = "other";
+
+    // Per-stream throughput is averaged over this window before it is recorded
+    private static final long THROUGHPUT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final MeterRegistry registry;
+    private final int maxHosts;
+    private final Map<String, AtomicInteger> connections = new ConcurrentHashMap<>();
+    private final Set<BufferLevel> buffers = ConcurrentHashMap.newKeySet();
+
+    private final Timer connectSuccess;
+    private final Timer connectFailure;
+    private final Timer firstByte;
+    private final Timer probe;
+    private final Counter probeCacheHit;
+    private final Counter probeCacheMiss;
+    private final Counter streamBytes;
+    private final DistributionSummary streamThroughput;
+    private final Timer metadataParse;
+    private final Counter reconnectSuccess;
+    private final Counter reconnectRetry;
+    private final Counter reconnectExhausted;
+    private final Counter underruns;
+    private final Counter stalls;
+    private final Counter circuitRejected;
+    private final Counter connectBudgetTimeouts;
+
+    public IcyMetrics(MeterRegistry registry, int maxHosts) {
+        this.registry = registry;
+        this.maxHosts = maxHosts;
+
+        this.connectSuccess = latency("icy.connect", "Time until upstream response headers arrived", "success");
+        this.connectFailure = latency("icy.connect", "Time until upstream response headers arrived", "failure");
+        this.firstByte = latency("icy.ttfb", "Time until the first upstream audio byte arrived", null);
+        this.probe = latency("icy.probe", "HEAD probes of URLs that do not look like streams", null);
+        this.probeCacheHit = probeCache("hit");
+        this.probeCacheMiss = probeCache("miss");
+
+        this.streamBytes = Counter.builder("icy.stream.bytes")
+            .description("Audio bytes received from upstream")
+            .baseUnit("bytes")
+            .register(registry);
+        this.streamThroughput = DistributionSummary.builder("icy.stream.throughput")
+            .description("Per-stream upstream throughput, averaged over 10 seconds")
+            .baseUnit("bytes_per_second")
+            .publishPercentileHistogram()
+            .minimumExpectedValue(1000.0)
+            .maximumExpectedValue(1_000_000.0)
+            .register(registry);
+
+        this.metadataParse = Timer.builder("icy.metadata.parse")
+            .description("ICY metadata blocks parsed")
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofNanos(500))
+            .maximumExpectedValue(Duration.ofMillis(10))
+            .register(registry);
+
+        this.reconnectSuccess = reconnect("success");
+        this.reconnectRetry = reconnect("retry");
+        this.reconnectExhausted = reconnect("exhausted");
+
+        this.underruns = Counter.builder("icy.buffer.underruns")
+            .description("Times the decoder found the read-ahead buffer empty")
+            .register(registry);
+        Gauge.builder("icy.buffer.fill", buffers, IcyMetrics::sumFill)
+            .description("Bytes held in read-ahead buffers ahead of the decoders")
+            .baseUnit("bytes")
+            .register(registry);
+        Gauge.builder("icy.buffer.capacity", buffers, IcyMetrics::sumCapacity)
+            .description("Size of all open read-ahead buffers")
+            .baseUnit("bytes")
+            .register(registry);
+        this.stalls = Counter.builder("icy.stalls")
+            .description("Upstreams dropped by the stall watchdog for delivering below their bitrate")
+            .register(registry);
+        this.circuitRejected = Counter.builder("icy.circuit.rejected")
+            .description("Upstream requests failed fast because the circuit of their host was open")
+            .register(registry);
+        this.connectBudgetTimeouts = Counter.builder("icy.connect.budget.timeouts")
+            .description("Upstream requests that gave up waiting for their host's connect budget")
+            .register(registry);
+    }
+
+    /**
+     * @return metrics that record into nothing, for when metrics are disabled
+     */
+    public static IcyMetrics disabled() {
+        return new IcyMetrics(new CompositeMeterRegistry(), 0);
+    }
+
+    private Timer latency(String name, String description, String outcome) {
+        Timer.Builder builder = Timer.builder(name)
+            .description(description)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(5))
+            .maximumExpectedValue(Duration.ofSeconds(30));
+
+        if (outcome != null) {
+            builder.tag("outcome", outcome);
+        }
+
+        return builder.register(registry);
+    }
+
+    private Counter probeCache(String result) {
+        return Counter.builder("icy.probe.cache")
+            .description("Stream probe cache lookups")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    private Counter reconnect(String outcome) {
+        return Counter.builder("icy.reconnect.attempts")
+            .description("Reconnect attempts after an upstream drop")
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+
+    /**
+     * Register a gauge on a plugin component, held weakly like any Micrometer gauge.
+     */
+    public <T> void gauge(String name, String description, T target, ToDoubleFunction<T> value) {
+        Gauge.builder(name, target, value).description(description).register(registry);
+    }
+
+    public void recordConnect(long startNanos, boolean success) {
+        (success ? connectSuccess : connectFailure).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFirstByte(long startNanos) {
+        firstByte.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordProbe(long startNanos) {
+        probe.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordProbeCache(boolean hit) {
+        (hit ? probeCacheHit : probeCacheMiss).increment();
+    }
+
+    public void recordMetadataParse(long nanos) {
+        metadataParse.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordReconnectSuccess() {
+        reconnectSuccess.increment();
+    }
+
+    /**
+     * @param exhausted true if this was the last attempt and the stream gives up
+     */
+    public void recordReconnectFailure(boolean exhausted) {
+        (exhausted ? reconnectExhausted : reconnectRetry).increment();
+    }
+
+    public void recordUnderrun() {
+        underruns.increment();
+    }
+
+    /**
+     * Include a read-ahead buffer in the fill and capacity gauges until it is closed.
+     */
+    public void bufferOpened(BufferLevel buffer) {
+        buffers.add(buffer);
+    }
+
+    public void bufferClosed(BufferLevel buffer) {
+        buffers.remove(buffer);
+    }
+
+    private static double sumFill(Set<BufferLevel> buffers) {
+        long total = 0;
+        for (BufferLevel buffer : buffers) {
+            total += buffer.getFillLevel();
+        }
+        return total;
+    }
+
+    private static double sumCapacity(Set<BufferLevel> buffers) {
+        long total = 0;
+        for (BufferLevel buffer : buffers) {
+            total += buffer.getCapacity();
+        }
+        return total;
+    }
+
+    public void recordStall() {
+        stalls.increment();
+    }
+
+    public void recordCircuitRejected() {
+        circuitRejected.increment();
+    }
+
+    public void recordConnectBudgetTimeout() {
+        connectBudgetTimeouts.increment();
+    }
+
+    /**
+     * Count an upstream audio connection as open.
+     *
+     * @return host tag to pass to {@link #connectionClosed(String)}
+     */
+    public String connectionOpened(String host) {
+        String tag = hostTag(host);
+        connections.get(tag).incrementAndGet();
+        return tag;
+    }
+
+    public void connectionClosed(String hostTag) {
+        AtomicInteger count = connections.get(hostTag);
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    private String hostTag(String host) {
+        AtomicInteger count = connections.get(host);
+        if (count == null) {
+            String tag = host != null && connections.size() < maxHosts ? host : OTHER_HOST;
+            // The map holds the gauges strongly, so an idle host reads 0 instead of disappearing
+            connections.computeIfAbsent(tag, key -> {
+                AtomicInteger created = new AtomicInteger();
+                Gauge.builder("icy.upstream.connections", created, AtomicInteger::get)
+                    .description("Open upstream audio connections")
+                    .tag("host", key)
+                    .register(registry);
+                return created;
+            });
+            return tag;
+        }
+        return host;
+    }
+
+    /**
+     * Fill level of a read-ahead buffer, sampled when metrics are scraped.
+     */
+    public interface BufferLevel {
+        int getFillLevel();
+
+        int getCapacity();
+    }
+
+    /**
+     * @return meter for the bytes of one stream, to be used by a single reading thread
+     */
+    public StreamMeter newStreamMeter() {
+        return new StreamMeter();
+    }
+
+    public class StreamMeter {
+        private long windowStart = System.nanoTime();
+        private long windowBytes;
+
+        public void onBytes(int count) {
+            streamBytes.increment(count);
+            windowBytes += count;
+
+            long now = System.nanoTime();
+            long elapsed = now - windowStart;
+            if (elapsed >= THROUGHPUT_WINDOW_NANOS) {
+                streamThroughput.record(windowBytes * 1e9 / elapsed);
+                windowStart = now;
+                windowBytes = 0;
+            }
+        }
+
+        /**
+         * Start a new window, so time spent disconnected is not counted as slow throughput.
+         */
+        public void reset() {
+            windowStart = System.nanoTime();
+            windowBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.zenkho.icy.rest;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageOutput;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import com.zenkho.icy.IcyStreamPlugin;
+import com.zenkho.icy.source.BatchLoader;
+import com.zenkho.icy.source.IcySourceManager;
+import kotlinx.serialization.json.JsonElement;
+import kotlinx.serialization.json.JsonElementKt;
+import kotlinx.serialization.json.JsonObject;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads a whole station list in one request, for importing station directories.
+ * <p>
+ * {@code POST /v4/icy/loadtracks} with {@code {"identifiers": [...], "timeoutMs": ...}}
+ * answers with newline-delimited JSON, one line per identifier in the order they finish
+ * loading, shaped like the {@code /v4/loadtracks} response plus the {@code identifier}.
+ * A slow station therefore does not hold back the lines of the others.
+ */
+@RestController
+public class IcyBatchLoadController {
+
+    private final IcyStreamPlugin plugin;
+
+    public IcyBatchLoadController(IcyStreamPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @PostMapping("/v4/icy/loadtracks")
+    public ResponseEntity<?> loadTracks(@RequestBody BatchLoadRequest request) {
+        List<String> identifiers = request.getIdentifiers() != null ? request.getIdentifiers() : Collections.emptyList();
+        if (identifiers.size() > IcyHistoryController.MAX_STATIONS_PER_REQUEST) {
+            return error(HttpStatus.BAD_REQUEST, "At most " + IcyHistoryController.MAX_STATIONS_PER_REQUEST + " identifiers per request");
+        } else if (request.getTimeoutMs() != null && request.getTimeoutMs() <= 0) {
+            return error(HttpStatus.BAD_REQUEST, "timeoutMs must be positive");
+        }
+
+        IcySourceManager sourceManager = plugin.getSourceManager();
+        AudioPlayerManager playerManager = plugin.getPlayerManager();
+        if (sourceManager == null || playerManager == null) {
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Source manager is not registered yet");
+        }
+
+        long timeoutMs = request.getTimeoutMs() != null ? request.getTimeoutMs() : Long.MAX_VALUE;
+        StreamingResponseBody body = output -> stream(sourceManager.getBatchLoader(), playerManager, identifiers, timeoutMs, output);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private static void stream(BatchLoader loader, AudioPlayerManager playerManager, List<String> identifiers,
+                               long timeoutMs, OutputStream output) throws IOException {
+        try {
+            loader.load(identifiers, timeoutMs, result -> {
+                try {
+                    output.write((toJson(playerManager, result) + "\n").getBytes(StandardCharsets.UTF_8));
+                    output.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Client went away, the loader cancels what is still resolving
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch load interrupted");
+        }
+    }
+
+    private static String toJson(AudioPlayerManager playerManager, BatchLoader.Result result) throws IOException {
+        Map<String, JsonElement> line = new LinkedHashMap<>();
+        line.put("identifier", JsonElementKt.JsonPrimitive(result.getIdentifier()));
+
+        Map<String, JsonElement> data = new LinkedHashMap<>();
+        switch (result.getOutcome()) {
+            case TRACK:
+                AudioTrack track = (AudioTrack) result.getItem();
+                line.put("loadType", JsonElementKt.JsonPrimitive("track"));
+                data.put("encoded", JsonElementKt.JsonPrimitive(encode(playerManager, track)));
+                data.put("info", toJson(track));
+                break;
+            case EMPTY:
+                line.put("loadType", JsonElementKt.JsonPrimitive("empty"));
+                break;
+            default:
+                line.put("loadType", JsonElementKt.JsonPrimitive("error"));
+                data.put("message", JsonElementKt.JsonPrimitive(result.getError()));
+                data.put("severity", JsonElementKt.JsonPrimitive("common"));
+                break;
+        }
+
+        line.put("data", new JsonObject(data));
+        return new JsonObject(line).toString();
+    }
+
+    private static JsonObject toJson(AudioTrack track) {
+        AudioTrackInfo info = track.getInfo();
+        Map<String, JsonElement> fields = new LinkedHashMap<>();
+        fields.put("identifier", JsonElementKt.JsonPrimitive(info.identifier));
+        fields.put("isSeekable", JsonElementKt.JsonPrimitive(track.isSeekable()));
+        fields.put("author", JsonElementKt.JsonPrimitive(info.author));
+        fields.put("length", JsonElementKt.JsonPrimitive(info.length));
+        fields.put("isStream", JsonElementKt.JsonPrimitive(info.isStream));
+        fields.put("position", JsonElementKt.JsonPrimitive(track.getPosition()));
+        fields.put("title", JsonElementKt.JsonPrimitive(info.title));
+        fields.put("uri", JsonElementKt.JsonPrimitive(info.uri));
+        fields.put("sourceName", JsonElementKt.JsonPrimitive(track.getSourceManager().getSourceName()));
+        return new JsonObject(fields);
+    }
+
+    private static String encode(AudioPlayerManager playerManager, AudioTrack track) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        playerManager.encodeTrack(new MessageOutput(bytes), track);
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("errors", Collections.singletonList(message));
+        return ResponseEntity.status(status).body(response);
+    }
+
+    public static class BatchLoadRequest {
+        private List<String> identifiers;
+        private Long timeoutMs;
+
+        public List<String> getIdentifiers() {
+            return identifiers;
+        }
+
+        public void setIdentifiers(List<String> identifiers) {
+            this.identifiers = identifiers;
+        }
+
+        public Long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public void setTimeoutMs(Long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+    }
+}
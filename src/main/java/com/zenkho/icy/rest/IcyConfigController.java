@@ -0,0 +1,92 @@
+package com.zenkho.icy.rest;
+
+import com.zenkho.icy.IcyStreamPlugin;
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.source.IcySourceManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin endpoint to read the plugin settings and change the runtime-tunable ones without
+ * restarting the node. Sits behind Lavalink's authorization like every other route.
+ */
+@RestController
+public class IcyConfigController {
+
+    private static final Logger log = LoggerFactory.getLogger(IcyConfigController.class);
+
+    private final IcyStreamPlugin plugin;
+
+    public IcyConfigController(IcyStreamPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @GetMapping("/v4/icy/config")
+    public Map<String, Object> getConfig() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("settings", plugin.getConfig().toMap());
+        response.put("reloadable", Config.RELOADABLE);
+        return response;
+    }
+
+    /**
+     * Apply the given settings (same names as in plugins.icy). The whole update is
+     * rejected if any setting is unknown, needs a restart or fails validation.
+     */
+    @PatchMapping("/v4/icy/config")
+    public ResponseEntity<Map<String, Object>> updateConfig(@RequestBody Map<String, Object> settings) {
+        Config live = plugin.getConfig();
+        List<String> errors = new ArrayList<>();
+
+        for (String name : settings.keySet()) {
+            if (!Config.settingNames().contains(name)) {
+                errors.add("Unknown setting: " + name);
+            } else if (!Config.RELOADABLE.contains(name)) {
+                errors.add("Setting requires a restart: " + name);
+            }
+        }
+
+        // Bind onto a copy first, so a bad value never reaches the live config
+        Config candidate = live.copy();
+        if (errors.isEmpty()) {
+            try {
+                new Binder(new MapConfigurationPropertySource(settings)).bind("", Bindable.ofInstance(candidate));
+            } catch (RuntimeException e) {
+                errors.add("Invalid value: " + e.getMessage());
+            }
+        }
+
+        if (errors.isEmpty()) {
+            errors.addAll(candidate.validate());
+        }
+
+        if (!errors.isEmpty()) {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("errors", errors);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        live.apply(candidate, settings.keySet());
+
+        IcySourceManager sourceManager = plugin.getSourceManager();
+        if (sourceManager != null) {
+            sourceManager.reconfigure();
+        }
+
+        log.info("Reloaded plugin settings: {}", settings.keySet());
+        return ResponseEntity.ok(live.toMap());
+    }
+}
@@ -0,0 +1,110 @@
+package com.zenkho.icy.rest;
+
+import com.zenkho.icy.IcyStreamPlugin;
+import com.zenkho.icy.metadata.StationHistory;
+import com.zenkho.icy.source.IcySourceManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recent titles of stations played on this node, for dashboards and bots that would
+ * otherwise open their own connection to every station to scrape its metadata.
+ * <p>
+ * {@code GET /v4/icy/history?url=...&url=...} for a few stations, {@code POST} with
+ * {@code {"urls": [...]}} for batches too long for a query string. Stations not played
+ * recently come back with an empty list.
+ */
+@RestController
+public class IcyHistoryController {
+
+    static final int MAX_STATIONS_PER_REQUEST = 500;
+
+    private final IcyStreamPlugin plugin;
+
+    public IcyHistoryController(IcyStreamPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @GetMapping("/v4/icy/history")
+    public ResponseEntity<Map<String, Object>> getHistory(@RequestParam("url") List<String> urls,
+                                                          @RequestParam(value = "limit", required = false) Integer limit) {
+        return lookup(urls, limit);
+    }
+
+    @PostMapping("/v4/icy/history")
+    public ResponseEntity<Map<String, Object>> postHistory(@RequestBody HistoryRequest request) {
+        return lookup(request.getUrls() != null ? request.getUrls() : Collections.emptyList(), request.getLimit());
+    }
+
+    private ResponseEntity<Map<String, Object>> lookup(Collection<String> urls, Integer limit) {
+        if (urls.size() > MAX_STATIONS_PER_REQUEST) {
+            return error(HttpStatus.BAD_REQUEST, "At most " + MAX_STATIONS_PER_REQUEST + " stations per request");
+        } else if (limit != null && limit < 0) {
+            return error(HttpStatus.BAD_REQUEST, "limit must not be negative");
+        }
+
+        IcySourceManager sourceManager = plugin.getSourceManager();
+        if (sourceManager == null) {
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Source manager is not registered yet");
+        }
+
+        StationHistory history = sourceManager.getStationHistory();
+        int entries = limit != null ? limit : Integer.MAX_VALUE;
+
+        Map<String, Object> stations = new LinkedHashMap<>();
+        for (String url : urls) {
+            List<Map<String, Object>> titles = new ArrayList<>();
+            for (StationHistory.Entry entry : history.get(url, entries)) {
+                Map<String, Object> title = new LinkedHashMap<>();
+                title.put("timestamp", entry.getTimestamp());
+                title.put("title", entry.getTitle());
+                title.put("url", entry.getUrl());
+                titles.add(title);
+            }
+            stations.put(url, titles);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("stations", stations);
+        return ResponseEntity.ok(response);
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("errors", Collections.singletonList(message));
+        return ResponseEntity.status(status).body(response);
+    }
+
+    public static class HistoryRequest {
+        private List<String> urls;
+        private Integer limit;
+
+        public List<String> getUrls() {
+            return urls;
+        }
+
+        public void setUrls(List<String> urls) {
+            this.urls = urls;
+        }
+
+        public Integer getLimit() {
+            return limit;
+        }
+
+        public void setLimit(Integer limit) {
+            this.limit = limit;
+        }
+    }
+}
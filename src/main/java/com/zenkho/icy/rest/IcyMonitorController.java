@@ -0,0 +1,127 @@
+package com.zenkho.icy.rest;
+
+import com.zenkho.icy.IcyStreamPlugin;
+import com.zenkho.icy.metadata.IcyMetadataParser.IcyMetadata;
+import com.zenkho.icy.source.IcySourceManager;
+import com.zenkho.icy.stream.MetadataMonitor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Live titles of stations nobody is playing, from metadata-only monitors.
+ * <p>
+ * {@code POST} with {@code {"urls": [...]}} starts monitors or keeps them alive,
+ * {@code GET ?url=...} reads them, {@code DELETE ?url=...} stops them. Monitors that are
+ * not asked about for {@code monitorIdleMs} stop on their own, so a client keeps the
+ * stations it shows alive by polling them.
+ */
+@RestController
+public class IcyMonitorController {
+
+    private final IcyStreamPlugin plugin;
+
+    public IcyMonitorController(IcyStreamPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @PostMapping("/v4/icy/monitor")
+    public ResponseEntity<Map<String, Object>> watch(@RequestBody MonitorRequest request) {
+        List<String> urls = request.getUrls() != null ? request.getUrls() : Collections.emptyList();
+        return respond(urls, MetadataMonitor::watch, "Monitor limit reached");
+    }
+
+    @GetMapping("/v4/icy/monitor")
+    public ResponseEntity<Map<String, Object>> get(@RequestParam("url") List<String> urls) {
+        return respond(urls, MetadataMonitor::get, "Not monitored");
+    }
+
+    @DeleteMapping("/v4/icy/monitor")
+    public ResponseEntity<Map<String, Object>> unwatch(@RequestParam("url") List<String> urls) {
+        IcySourceManager sourceManager = plugin.getSourceManager();
+        if (sourceManager == null) {
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Source manager is not registered yet");
+        }
+
+        List<String> stopped = new ArrayList<>();
+        for (String url : urls) {
+            if (sourceManager.getMetadataMonitor().unwatch(url)) {
+                stopped.add(url);
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("stopped", stopped);
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> respond(Collection<String> urls,
+                                                        BiFunction<MetadataMonitor, String, MetadataMonitor.Status> lookup,
+                                                        String missing) {
+        if (urls.size() > IcyHistoryController.MAX_STATIONS_PER_REQUEST) {
+            return error(HttpStatus.BAD_REQUEST, "At most " + IcyHistoryController.MAX_STATIONS_PER_REQUEST + " stations per request");
+        }
+
+        IcySourceManager sourceManager = plugin.getSourceManager();
+        if (sourceManager == null) {
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Source manager is not registered yet");
+        }
+
+        MetadataMonitor monitor = sourceManager.getMetadataMonitor();
+        Map<String, Object> stations = new LinkedHashMap<>();
+        for (String url : urls) {
+            MetadataMonitor.Status status = lookup.apply(monitor, url);
+            stations.put(url, status != null ? toMap(status) : Collections.singletonMap("error", missing));
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("stations", stations);
+        return ResponseEntity.ok(response);
+    }
+
+    private static Map<String, Object> toMap(MetadataMonitor.Status status) {
+        IcyMetadata metadata = status.getMetadata();
+
+        Map<String, Object> station = new LinkedHashMap<>();
+        station.put("state", status.getState().name());
+        station.put("title", metadata != null ? metadata.getStreamTitle() : null);
+        station.put("url", metadata != null ? metadata.getStreamUrl() : null);
+        station.put("updatedAt", status.getUpdatedAt());
+        station.put("bitrate", status.getBitrateKbps());
+        if (status.getError() != null) {
+            station.put("error", status.getError());
+        }
+        return station;
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("errors", Collections.singletonList(message));
+        return ResponseEntity.status(status).body(response);
+    }
+
+    public static class MonitorRequest {
+        private List<String> urls;
+
+        public List<String> getUrls() {
+            return urls;
+        }
+
+        public void setUrls(List<String> urls) {
+            this.urls = urls;
+        }
+    }
+}
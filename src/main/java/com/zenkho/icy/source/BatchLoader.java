@@ -0,0 +1,198 @@
+package com.zenkho.icy.source;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import okhttp3.HttpUrl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Resolves a list of station URLs concurrently, for importing station lists.
+ * <p>
+ * Identifiers are grouped by host and every host is drained by at most
+ * {@code batchLoadPerHost} workers, so a list full of one provider does not hammer it
+ * while a few dead hosts only hold up their own entries. At most
+ * {@code batchLoadParallelism} identifiers resolve at once overall. Results are handed
+ * out in completion order, and whatever is unresolved at the deadline is reported as
+ * timed out.
+ */
+public class BatchLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchLoader.class);
+
+    public enum Outcome {
+        TRACK,
+        /** Not a stream this plugin can play. */
+        EMPTY,
+        ERROR
+    }
+
+    /**
+     * Outcome of one identifier.
+     */
+    public static class Result {
+        private final String identifier;
+        private final Outcome outcome;
+        private final AudioItem item;
+        private final String error;
+
+        Result(String identifier, Outcome outcome, AudioItem item, String error) {
+            this.identifier = identifier;
+            this.outcome = outcome;
+            this.item = item;
+            this.error = error;
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * @return the loaded item, null unless the outcome is {@link Outcome#TRACK}
+         */
+        public AudioItem getItem() {
+            return item;
+        }
+
+        /**
+         * @return why loading failed, null unless the outcome is {@link Outcome#ERROR}
+         */
+        public String getError() {
+            return error;
+        }
+    }
+
+    private final IcySourceManager sourceManager;
+    private final Config config;
+    private final ExecutorService io;
+
+    BatchLoader(IcySourceManager sourceManager, Config config, ExecutorService io) {
+        this.sourceManager = sourceManager;
+        this.config = config;
+        this.io = io;
+    }
+
+    /**
+     * Resolve the identifiers, blocking until all are done or the timeout passed. Each
+     * result is passed to the consumer on the calling thread as soon as it is available,
+     * duplicates are resolved once.
+     *
+     * @param timeoutMs deadline for the whole batch, capped at {@code batchLoadTimeoutMs}
+     */
+    public void load(List<String> identifiers, long timeoutMs, Consumer<Result> consumer) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.min(timeoutMs, config.getBatchLoadTimeoutMs()));
+        Set<String> pending = new LinkedHashSet<>(identifiers);
+        BlockingQueue<Result> results = new LinkedBlockingQueue<>();
+        Semaphore parallelism = new Semaphore(config.getBatchLoadParallelism());
+        List<Future<?>> workers = new ArrayList<>();
+
+        Map<String, Queue<String>> byHost = new LinkedHashMap<>();
+        for (String identifier : pending) {
+            byHost.computeIfAbsent(hostOf(identifier), host -> new ArrayDeque<>()).add(identifier);
+        }
+
+        try {
+            for (Queue<String> queue : byHost.values()) {
+                int hostWorkers = Math.min(queue.size(), config.getBatchLoadPerHost());
+                for (int i = 0; i < hostWorkers; i++) {
+                    workers.add(io.submit(() -> drain(queue, parallelism, deadline, results)));
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            log.debug("Batch load cut short, plugin is shutting down");
+        }
+
+        try {
+            while (!pending.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                Result result = remaining > 0 ? results.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (result == null) {
+                    break;
+                }
+
+                if (pending.remove(result.getIdentifier())) {
+                    consumer.accept(result);
+                }
+            }
+        } finally {
+            for (Future<?> worker : workers) {
+                worker.cancel(true);
+            }
+        }
+
+        for (String identifier : pending) {
+            consumer.accept(new Result(identifier, Outcome.ERROR, null, "Timed out"));
+        }
+    }
+
+    private void drain(Queue<String> queue, Semaphore parallelism, long deadline, BlockingQueue<Result> results) {
+        while (true) {
+            String identifier;
+            synchronized (queue) {
+                identifier = queue.poll();
+            }
+            if (identifier == null) {
+                return;
+            }
+
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (!parallelism.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                results.add(resolve(identifier));
+            } finally {
+                parallelism.release();
+            }
+
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    private Result resolve(String identifier) {
+        try {
+            // Nobody is about to play an imported station, so its connection is not parked
+            AudioItem item = sourceManager.resolve(identifier, false);
+            return item != null
+                ? new Result(identifier, Outcome.TRACK, item, null)
+                : new Result(identifier, Outcome.EMPTY, null, null);
+        } catch (Exception e) {
+            log.debug("Batch load of {} failed: {}", identifier, e.getMessage());
+            return new Result(identifier, Outcome.ERROR, null, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private static String hostOf(String identifier) {
+        HttpUrl parsed = identifier != null ? HttpUrl.parse(identifier) : null;
+        return parsed != null ? parsed.host() : "";
+    }
+}
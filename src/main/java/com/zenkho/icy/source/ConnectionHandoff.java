@@ -0,0 +1,80 @@
+package com.zenkho.icy.source;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived parking spot for responses opened by {@code loadItem}.
+ * <p>
+ * The GET made while loading a stream already has the ICY headers and the start of
+ * the audio body, so instead of closing it the first playback of that URL adopts it.
+ * Entries nobody claims within the TTL are closed.
+ */
+class ConnectionHandoff {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionHandoff.class);
+
+    private final Map<String, Response> parked = new ConcurrentHashMap<>();
+    private final Config config;
+    private final ScheduledExecutorService scheduler;
+
+    ConnectionHandoff(Config config, ScheduledExecutorService scheduler) {
+        this.config = config;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Park an open response for the given URL. Closes it right away if handoff is disabled.
+     */
+    void park(String url, Response response) {
+        long ttl = config.getHandoffTtlMs();
+        if (ttl <= 0) {
+            response.close();
+            return;
+        }
+
+        Response previous = parked.put(url, response);
+        if (previous != null) {
+            previous.close();
+        }
+
+        try {
+            scheduler.schedule(() -> expire(url, response), ttl, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Nothing would ever expire it
+            log.debug("Not parking connection for URL {}, plugin is shutting down", url);
+            parked.remove(url, response);
+            response.close();
+        }
+    }
+
+    /**
+     * @return the parked response for the URL, or null if there is none or it expired
+     */
+    Response take(String url) {
+        return parked.remove(url);
+    }
+
+    void close() {
+        List<Response> snapshot = new ArrayList<>(parked.values());
+        parked.clear();
+        snapshot.forEach(Response::close);
+    }
+
+    private void expire(String url, Response response) {
+        if (parked.remove(url, response)) {
+            log.debug("Parked connection for URL {} expired unused, closing", url);
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.zenkho.icy.source;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.metrics.IcyMetrics;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fails requests to an upstream host fast while it is down, instead of letting every
+ * probe, load and reconnect wait for its connect timeout.
+ * <p>
+ * After {@code circuitBreakerFailureThreshold} consecutive failures (no response or a
+ * 5xx) the circuit of the host opens and requests to it throw {@link CircuitOpenException}
+ * right away. Once {@code circuitBreakerOpenMs} passed, a single trial request is let
+ * through: if the host answers the circuit closes, otherwise it opens again. Installed as
+ * an application interceptor on the main client, so it covers every client derived from it.
+ */
+class HostCircuitBreaker implements Interceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(HostCircuitBreaker.class);
+
+    // Hosts that failed but are below the threshold are forgotten beyond this many
+    private static final int MAX_HOSTS = 4096;
+
+    private enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Thrown instead of connecting to a host whose circuit is open.
+     */
+    static class CircuitOpenException extends IOException {
+        CircuitOpenException(String host) {
+            super("Circuit open for host " + host + ", not connecting");
+        }
+    }
+
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+    private final Config config;
+    private final IcyMetrics metrics;
+
+    HostCircuitBreaker(Config config, IcyMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (config.getCircuitBreakerFailureThreshold() == 0) {
+            return chain.proceed(request);
+        }
+
+        String host = request.url().host();
+        Circuit circuit = circuits.get(host);
+        boolean trial = circuit != null && circuit.acquire(host);
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            if (chain.call().isCanceled()) {
+                // Closed by us, says nothing about the host
+                if (trial) {
+                    circuit.releaseTrial();
+                }
+            } else {
+                onFailure(host);
+            }
+            throw e;
+        }
+
+        if (response.code() >= 500) {
+            onFailure(host);
+        } else {
+            onSuccess(host);
+        }
+
+        return response;
+    }
+
+    /**
+     * @return hosts whose circuit is open or half-open
+     */
+    int getOpenCount() {
+        int open = 0;
+        for (Circuit circuit : circuits.values()) {
+            if (circuit.isOpen()) {
+                open++;
+            }
+        }
+        return open;
+    }
+
+    private void onFailure(String host) {
+        Circuit circuit = circuits.get(host);
+        if (circuit == null) {
+            if (circuits.size() >= MAX_HOSTS) {
+                circuits.values().removeIf(candidate -> !candidate.isOpen());
+            }
+            circuit = circuits.computeIfAbsent(host, key -> new Circuit());
+        }
+
+        circuit.failed(host);
+    }
+
+    private void onSuccess(String host) {
+        Circuit circuit = circuits.remove(host);
+        if (circuit != null && circuit.isOpen()) {
+            log.info("Host {} answered again, closing its circuit", host);
+        }
+    }
+
+    private class Circuit {
+        private State state = State.CLOSED;
+        private int failures;
+        private long openedAt;
+        private boolean trialInFlight;
+
+        /**
+         * @return true if the caller is the trial request of a half-open circuit
+         * @throws CircuitOpenException if the request must not be sent
+         */
+        synchronized boolean acquire(String host) throws CircuitOpenException {
+            switch (state) {
+                case CLOSED:
+                    return false;
+                case OPEN:
+                    if (System.currentTimeMillis() - openedAt < config.getCircuitBreakerOpenMs()) {
+                        break;
+                    }
+                    state = State.HALF_OPEN;
+                    // fall through
+                default:
+                    if (trialInFlight) {
+                        break;
+                    }
+                    trialInFlight = true;
+                    log.debug("Sending trial request to host {}", host);
+                    return true;
+            }
+
+            metrics.recordCircuitRejected();
+            throw new CircuitOpenException(host);
+        }
+
+        synchronized void releaseTrial() {
+            trialInFlight = false;
+        }
+
+        synchronized void failed(String host) {
+            failures++;
+
+            if (state == State.HALF_OPEN) {
+                log.warn("Trial request to host {} failed, keeping its circuit open", host);
+            } else if (state == State.CLOSED && failures >= config.getCircuitBreakerFailureThreshold()) {
+                log.warn("Host {} failed {} times in a row, opening its circuit for {}ms",
+                    host, failures, config.getCircuitBreakerOpenMs());
+            } else {
+                return;
+            }
+
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            trialInFlight = false;
+        }
+
+        synchronized boolean isOpen() {
+            return state != State.CLOSED;
+        }
+    }
+}
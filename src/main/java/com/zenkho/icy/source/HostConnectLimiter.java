@@ -0,0 +1,189 @@
+package com.zenkho.icy.source;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.metrics.IcyMetrics;
+import com.zenkho.icy.stream.RequestPriority;
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps the connects in flight to each upstream host, so a burst of plays does not hit a
+ * server with more handshakes at once than it accepts.
+ * <p>
+ * A request holds one of the {@code hostMaxConnects} slots of its host until its response
+ * headers arrived; the audio body is read after that and does not count. Requests beyond
+ * the budget queue for up to {@code connectionTimeout} and are let through by
+ * {@link RequestPriority}, so waiting probes and loads never delay a playback reconnect.
+ * Probes also leave the last slot free for the other classes. Synchronous OkHttp calls are
+ * not limited by the dispatcher, which is why this is an interceptor. Waiters block on a
+ * lock condition rather than a monitor, so virtual threads do not pin their carrier.
+ */
+class HostConnectLimiter implements Interceptor {
+
+    // Waiters wake up this often to notice that their call was cancelled
+    private static final long CANCEL_CHECK_MS = 100;
+
+    /**
+     * Thrown when no connect slot of the host freed up in time. The host itself is fine,
+     * it is only busy, so this must not be taken for a host failure.
+     */
+    static class ConnectBudgetException extends IOException {
+        ConnectBudgetException(String host, long timeoutMs) {
+            super("Connect budget of host " + host + " used up for " + timeoutMs + "ms, not connecting");
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private final Map<String, Host> hosts = new HashMap<>();
+    private final Config config;
+    private final IcyMetrics metrics;
+    private int queued;
+
+    HostConnectLimiter(Config config, IcyMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (config.getHostMaxConnects() == 0) {
+            return chain.proceed(request);
+        }
+
+        RequestPriority priority = request.tag(RequestPriority.class);
+        String host = request.url().host();
+
+        acquire(chain.call(), host, priority != null ? priority : RequestPriority.LOAD);
+        try {
+            return chain.proceed(request);
+        } finally {
+            release(host);
+        }
+    }
+
+    /**
+     * @return requests waiting for a slot, over all hosts
+     */
+    int getQueuedCount() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire(Call call, String host, RequestPriority priority) throws IOException {
+        lock.lock();
+        try {
+            Host state = hosts.computeIfAbsent(host, key -> new Host());
+            if (state.canStart(priority, config.getHostMaxConnects())) {
+                state.active++;
+                return;
+            }
+
+            awaitSlot(call, host, state, priority);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held
+    private void awaitSlot(Call call, String host, Host state, RequestPriority priority) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getConnectionTimeout());
+        boolean acquired = false;
+        state.waiting[priority.ordinal()]++;
+        queued++;
+
+        try {
+            while (!state.canStart(priority, config.getHostMaxConnects())) {
+                if (call.isCanceled()) {
+                    throw new IOException("Canceled");
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    metrics.recordConnectBudgetTimeout();
+                    throw new ConnectBudgetException(host, config.getConnectionTimeout());
+                }
+
+                slotFreed.await(Math.min(TimeUnit.MILLISECONDS.toNanos(CANCEL_CHECK_MS), remaining), TimeUnit.NANOSECONDS);
+            }
+
+            state.active++;
+            acquired = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to connect to " + host);
+        } finally {
+            state.waiting[priority.ordinal()]--;
+            queued--;
+
+            if (!acquired) {
+                // Lower priority waiters may have been held back by this one
+                removeIfIdle(host, state);
+                slotFreed.signalAll();
+            }
+        }
+    }
+
+    private void release(String host) {
+        lock.lock();
+        try {
+            Host state = hosts.get(host);
+            if (state != null) {
+                state.active--;
+                removeIfIdle(host, state);
+            }
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeIfIdle(String host, Host state) {
+        if (state.active == 0 && state.waitingTotal() == 0) {
+            hosts.remove(host);
+        }
+    }
+
+    private static class Host {
+        private final int[] waiting = new int[RequestPriority.values().length];
+        private int active;
+
+        boolean canStart(RequestPriority priority, int limit) {
+            if (limit == 0) {
+                return true;
+            }
+
+            for (int i = 0; i < priority.ordinal(); i++) {
+                if (waiting[i] > 0) {
+                    return false;
+                }
+            }
+
+            int slots = priority == RequestPriority.PROBE && limit > 1 ? limit - 1 : limit;
+            return active < slots;
+        }
+
+        int waitingTotal() {
+            int total = 0;
+            for (int count : waiting) {
+                total += count;
+            }
+            return total;
+        }
+    }
+}
@@ -8,16 +8,44 @@ import com.sedmelluq.discord.lavaplayer.track.AudioReference;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
 import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.hls.HlsSegmentStream;
+import com.zenkho.icy.metadata.StationHistory;
+import com.zenkho.icy.metadata.TrackMetadataListener;
+import com.zenkho.icy.metrics.IcyMetrics;
+import com.zenkho.icy.stream.IcyHttpStream;
 import com.zenkho.icy.stream.IcyStreamAudioTrack;
+import com.zenkho.icy.stream.MetadataMonitor;
+import com.zenkho.icy.stream.RequestPriority;
+import com.zenkho.icy.stream.SharedTranscoder;
+import com.zenkho.icy.stream.StationHub;
+import com.zenkho.icy.stream.StreamExecutors;
+import com.zenkho.icy.stream.StreamFormat;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
@@ -26,7 +54,7 @@ public class IcySourceManager implements AudioSourceManager {
     private static final Logger log = LoggerFactory.getLogger(IcySourceManager.class);
     
     private static final Pattern STREAM_URL_PATTERN = Pattern.compile(
-        "^https?://.*\\.(mp3|aac|aacp|m3u8|pls)(?:\\?.*)?$|" +
+        "^https?://.*\\.(mp3|aac|aacp|m3u8?|pls)(?:\\?.*)?$|" +
         "^https?://.*(?:radio|stream|live|broadcast).*$",
         Pattern.CASE_INSENSITIVE
     );
@@ -35,6 +63,9 @@ public class IcySourceManager implements AudioSourceManager {
         "audio/mpeg",
         "audio/aac",
         "audio/aacp",
+        "audio/ogg",
+        "application/ogg",
+        "audio/flac",
         "audio/x-mpegurl",
         "application/vnd.apple.mpegurl",
         "audio/mpegurl",
@@ -42,34 +73,150 @@ public class IcySourceManager implements AudioSourceManager {
     };
 
     private final Config config;
-    private final OkHttpClient httpClient;
+    private final IcyMetrics metrics;
+    private volatile OkHttpClient httpClient;
+    private volatile OkHttpClient streamHttpClient;
     private final MediaContainerRegistry containerRegistry;
+    private final StreamExecutors executors;
+    private final StationHub stationHub;
+    private final SharedTranscoder sharedTranscoder;
+    private final ProbeCache probeCache;
+    private final ConnectionHandoff handoff;
+    private final PlaylistResolver playlists;
+    private final StationHistory history;
+    private final MetadataMonitor monitor;
+    private final BatchLoader batchLoader;
+    private final HostCircuitBreaker circuitBreaker;
+    private final HostConnectLimiter connectLimiter;
+    private volatile TrackMetadataListener trackMetadataListener;
 
-    public IcySourceManager(Config config) {
+    public IcySourceManager(Config config, IcyMetrics metrics) {
         this.config = config;
+        this.metrics = metrics;
+        this.circuitBreaker = new HostCircuitBreaker(config, metrics);
+        this.connectLimiter = new HostConnectLimiter(config, metrics);
         this.httpClient = createHttpClient();
+        this.streamHttpClient = createStreamHttpClient();
         this.containerRegistry = MediaContainerRegistry.DEFAULT_REGISTRY;
+        this.executors = new StreamExecutors(config.isVirtualThreads());
+        this.stationHub = new StationHub(config, executors, this::openStream);
+        this.sharedTranscoder = new SharedTranscoder(config, executors, stationHub, containerRegistry);
+        this.probeCache = new ProbeCache(config);
+        this.handoff = new ConnectionHandoff(config, executors.getScheduler());
+        this.playlists = new PlaylistResolver(config, this::getStreamHttpClient, executors);
+        this.history = new StationHistory(config.getHistorySize(), config.getHistoryMaxStations());
+        this.monitor = new MetadataMonitor(config, executors, this::openMetadataMonitor, history);
+        this.batchLoader = new BatchLoader(this, config, executors.getIo());
+        metrics.gauge("icy.hub.stations", "Stations with a shared upstream connection", stationHub, StationHub::getStationCount);
+        metrics.gauge("icy.transcode.stages", "Stations transcoded once for all their players", sharedTranscoder, SharedTranscoder::getStageCount);
+        metrics.gauge("icy.monitors", "Stations followed by a metadata-only monitor", monitor, MetadataMonitor::getMonitorCount);
+        metrics.gauge("icy.circuit.open", "Upstream hosts failed fast by their open circuit", circuitBreaker, HostCircuitBreaker::getOpenCount);
+        metrics.gauge("icy.connect.budget", "Connects in flight allowed per upstream host (hostMaxConnects)", config, Config::getHostMaxConnects);
+        metrics.gauge("icy.connect.queued", "Upstream requests waiting for their host's connect budget", connectLimiter, HostConnectLimiter::getQueuedCount);
         log.info("IcySourceManager initialized");
     }
 
     private OkHttpClient createHttpClient() {
-        return new OkHttpClient.Builder()
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
             .connectTimeout(config.getConnectionTimeout(), TimeUnit.MILLISECONDS)
             .readTimeout(config.getReadTimeout(), TimeUnit.MILLISECONDS)
             .followRedirects(config.isFollowRedirects())
             .followSslRedirects(config.isFollowRedirects())
             .addInterceptor(chain -> {
                 Request original = chain.request();
-                Request request = original.newBuilder()
+                Request.Builder request = original.newBuilder()
                     .header("Icy-MetaData", "1")
                     .header("User-Agent", "Lavalink ICY Stream Plugin/1.1.1")
                     .header("Accept", "*/*")
-                    .header("Accept-Encoding", "identity") // Disable compression to avoid header issues
-                    .header("Connection", "close") // Avoid keep-alive issues
-                    .build();
-                return chain.proceed(request);
+                    .header("Accept-Encoding", "identity"); // Disable compression to avoid header issues
+
+                if (!config.isConnectionPooling()) {
+                    request.header("Connection", "close"); // Avoid keep-alive issues
+                }
+
+                return chain.proceed(request.build());
             })
+            // Outside the breaker, so waiting for a local connect slot never counts as a host failure
+            .addInterceptor(connectLimiter)
+            .addInterceptor(circuitBreaker);
+
+        if (config.isConnectionPooling()) {
+            builder.connectionPool(new ConnectionPool(
+                    config.getPoolMaxIdleConnections(),
+                    config.getPoolKeepAliveMs(),
+                    TimeUnit.MILLISECONDS
+                ));
+
+            configureTlsSessionCache(builder);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Apply reloaded settings that are baked into the HTTP clients. The rebuilt clients
+     * share the connection pool, so open connections are kept. Streams
+     * that are already playing keep the timeouts they were opened with.
+     */
+    public void reconfigure() {
+        httpClient = httpClient.newBuilder()
+            .connectTimeout(config.getConnectionTimeout(), TimeUnit.MILLISECONDS)
+            .readTimeout(config.getReadTimeout(), TimeUnit.MILLISECONDS)
             .build();
+        streamHttpClient = createStreamHttpClient();
+
+        log.info("Applied reloaded configuration to HTTP clients");
+    }
+
+    /**
+     * Client for long-lived audio bodies. Shares the interceptors and TLS setup of the main
+     * client but never pools or multiplexes, so a stream never sits on a connection that
+     * probes and playlist fetches are also using.
+     */
+    private OkHttpClient createStreamHttpClient() {
+        if (!config.isConnectionPooling()) {
+            return httpClient;
+        }
+
+        return httpClient.newBuilder()
+            .protocols(Collections.singletonList(Protocol.HTTP_1_1))
+            .connectionPool(new ConnectionPool(0, 1, TimeUnit.SECONDS))
+            .build();
+    }
+
+    /**
+     * Size the TLS client session cache so reconnects to the same host can resume
+     * sessions instead of doing a full handshake.
+     */
+    private void configureTlsSessionCache(OkHttpClient.Builder builder) {
+        try {
+            TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init((KeyStore) null);
+
+            X509TrustManager trustManager = null;
+            for (TrustManager candidate : trustManagerFactory.getTrustManagers()) {
+                if (candidate instanceof X509TrustManager) {
+                    trustManager = (X509TrustManager) candidate;
+                    break;
+                }
+            }
+
+            if (trustManager == null) {
+                log.warn("No X509 trust manager available, using default TLS settings");
+                return;
+            }
+
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, new TrustManager[] { trustManager }, null);
+
+            SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+            sessionContext.setSessionCacheSize(config.getTlsSessionCacheSize());
+            sessionContext.setSessionTimeout(config.getTlsSessionTimeoutSeconds());
+
+            builder.sslSocketFactory(sslContext.getSocketFactory(), trustManager);
+        } catch (GeneralSecurityException e) {
+            log.warn("Failed to configure TLS session cache, using default TLS settings: {}", e.getMessage());
+        }
     }
 
     @Override
@@ -80,19 +227,9 @@ public class IcySourceManager implements AudioSourceManager {
     @Override
     public AudioItem loadItem(AudioPlayerManager manager, AudioReference reference) {
         String identifier = reference.identifier;
-        
-        log.debug("Attempting to load item: {}", identifier);
-        
-        if (!isStreamUrl(identifier)) {
-            log.debug("URL {} is not identified as a stream URL", identifier);
-            return null;
-        }
 
         try {
-            log.debug("Loading stream from URL: {}", identifier);
-            AudioItem result = loadStream(identifier);
-            log.debug("Successfully loaded stream: {}", identifier);
-            return result;
+            return resolve(identifier, true);
         } catch (IOException e) {
             log.error("IOException while loading stream: {} - {}", identifier, e.getMessage());
             return null;
@@ -105,6 +242,28 @@ public class IcySourceManager implements AudioSourceManager {
         }
     }
 
+    /**
+     * Load a stream like {@link #loadItem}, but report why it could not be loaded instead
+     * of logging it.
+     *
+     * @param handOff park the connection for the first playback of the track, false when
+     *                no playback is expected soon (e.g. batch imports) and it is closed
+     * @return the loaded item, or null if the identifier is not a stream URL
+     */
+    public AudioItem resolve(String identifier, boolean handOff) throws IOException {
+        log.debug("Attempting to load item: {}", identifier);
+        
+        if (!isStreamUrl(identifier)) {
+            log.debug("URL {} is not identified as a stream URL", identifier);
+            return null;
+        }
+
+        log.debug("Loading stream from URL: {}", identifier);
+        AudioItem result = loadStream(identifier, handOff);
+        log.debug("Successfully loaded stream: {}", identifier);
+        return result;
+    }
+
     private boolean isStreamUrl(String url) {
         if (url == null || url.isEmpty()) {
             return false;
@@ -121,18 +280,30 @@ public class IcySourceManager implements AudioSourceManager {
             return true;
         }
         
+        Boolean cached = probeCache.lookup(url);
+        metrics.recordProbeCache(cached != null);
+        if (cached != null) {
+            log.debug("URL {} stream probe served from cache: {}", url, cached);
+            return cached;
+        }
+
         // Optionally probe the URL to check content type
         Request headRequest = new Request.Builder()
             .url(url)
             .head()
             .header("User-Agent", "Lavalink ICY Stream Plugin/1.1.1")
             .header("Accept", "*/*")
+            .tag(RequestPriority.class, RequestPriority.PROBE)
             .build();
             
-        try (Response response = httpClient.newCall(headRequest).execute()) {
-            
+        long probeStartedAt = System.nanoTime();
+        Call call = httpClient.newCall(headRequest);
+        try (Response response = call.execute()) {
+            metrics.recordProbe(probeStartedAt);
+
             if (!response.isSuccessful()) {
                 log.debug("HEAD request failed for URL: {} with code: {}", url, response.code());
+                probeCache.put(url, false);
                 return false;
             }
             
@@ -142,6 +313,7 @@ public class IcySourceManager implements AudioSourceManager {
                 for (String supportedType : SUPPORTED_CONTENT_TYPES) {
                     if (lowerContentType.contains(supportedType)) {
                         log.debug("URL {} identified as stream by content-type: {}", url, contentType);
+                        probeCache.put(url, true);
                         return true;
                     }
                 }
@@ -156,10 +328,20 @@ public class IcySourceManager implements AudioSourceManager {
                 log.debug("URL {} identified as ICY stream", url);
             }
             
+            probeCache.put(url, isIcyStream);
             return isIcyStream;
             
         } catch (IllegalArgumentException e) {
             log.debug("Invalid URL format: {} - {}", url, e.getMessage());
+            probeCache.put(url, false);
+            return false;
+        } catch (IOException e) {
+            log.debug("Failed to probe URL: {} - {}", url, e.getMessage());
+            // Host did not answer at all, avoid waiting on it again for a while. A busy
+            // host, an interrupt or a cancel says nothing about the host.
+            if (!(e instanceof HostConnectLimiter.ConnectBudgetException) && !isInterruption(e) && !call.isCanceled()) {
+                probeCache.putHostFailure(url);
+            }
             return false;
         } catch (Exception e) {
             log.debug("Failed to probe URL: {} - {}", url, e.getMessage());
@@ -168,18 +350,49 @@ public class IcySourceManager implements AudioSourceManager {
         }
     }
 
-    private AudioItem loadStream(String url) throws IOException {
+    private static boolean isInterruption(IOException e) {
+        // Read timeouts use the SocketTimeoutException subclass and do mean the host failed
+        return e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException);
+    }
+
+    private AudioItem loadStream(String url, boolean handOff) throws IOException {
         Request request = new Request.Builder()
             .url(url)
             .header("Icy-MetaData", "1")
             .header("Accept", "*/*")
+            .tag(RequestPriority.class, RequestPriority.LOAD)
             .build();
 
-        try (Response response = httpClient.newCall(request).execute()) {
+        Response response = null;
+        try {
+            // This GET may become the playback connection, so keep it off the shared pool
+            long startedAt = System.nanoTime();
+            try {
+                response = streamHttpClient.newCall(request).execute();
+            } catch (IOException e) {
+                metrics.recordConnect(startedAt, false);
+                throw e;
+            }
+            metrics.recordConnect(startedAt, response.isSuccessful());
+
             if (!response.isSuccessful()) {
                 throw new IOException("Unexpected response code: " + response.code() + " for URL: " + url);
             }
 
+            // Directory playlists list mirrors, continue with whichever mirror answers first
+            List<String> candidates = readPlaylist(response);
+            if (candidates != null) {
+                response.close();
+                response = null;
+
+                playlists.put(url, candidates);
+                PlaylistResolver.Winner winner = playlists.race(url, candidates, RequestPriority.LOAD);
+                playlists.putWinner(url, winner.url);
+                response = winner.response;
+
+                log.info("Resolved playlist {} to mirror {} ({} entries)", url, winner.url, candidates.size());
+            }
+
             // Safely extract headers with null checks and sanitization
             String title = sanitizeHeader(response.header("icy-name"));
             if (title == null || title.isEmpty()) {
@@ -200,19 +413,88 @@ public class IcySourceManager implements AudioSourceManager {
                 url
             );
 
-            log.info("Loaded stream: {} - {} ({}kbps)", title, author, bitrate != null ? bitrate : "Unknown");
+            StreamFormat format = detectFormat(url, response);
+            if (candidates == null) {
+                // Sniffing waited for the first bytes
+                metrics.recordFirstByte(startedAt);
+            }
+            probeCache.putFormat(url, format);
+
+            log.info("Loaded stream: {} - {} ({}kbps, {})", title, author, bitrate != null ? bitrate : "Unknown", format);
             
+            // Hand the open connection over to the first playback of this track,
+            // unless a shared upstream for the station is already running. HLS playback
+            // fetches the playlist itself, so there is nothing to hand over.
+            if (handOff && format != StreamFormat.HLS
+                && (!config.isSharedUpstream() || !format.isResyncable() || !stationHub.isStationActive(url))) {
+                handoff.park(url, response);
+                response = null;
+            }
+
             return new IcyStreamAudioTrack(trackInfo, this, config);
         } catch (Exception e) {
             log.error("Failed to load stream from URL: {}", url, e);
             throw new IOException("Failed to load stream: " + e.getMessage(), e);
+        } finally {
+            if (response != null) {
+                response.close();
+            }
         }
     }
     
+    /**
+     * Detect the audio format from the first bytes of the response without consuming them,
+     * so the connection can still be handed over to playback intact.
+     */
+    private StreamFormat detectFormat(String url, Response response) {
+        String contentType = response.header("Content-Type");
+
+        try {
+            ResponseBody head = response.peekBody(StreamFormat.SNIFF_LENGTH);
+            byte[] data = head.bytes();
+            int length = data.length;
+
+            // Only the bytes before the first metadata block are audio
+            String metaInt = response.header("icy-metaint");
+            if (metaInt != null && config.isEnableMetadata()) {
+                try {
+                    int interval = Integer.parseInt(metaInt.trim());
+                    if (interval > 0) {
+                        length = Math.min(length, interval);
+                    }
+                } catch (NumberFormatException ignored) {
+                    // Treated as no metadata, same as the stream itself does
+                }
+            }
+
+            return StreamFormat.detect(contentType, data, length);
+        } catch (IOException e) {
+            log.debug("Failed to sniff format of {}, using Content-Type: {}", url, e.getMessage());
+            return StreamFormat.detect(contentType, new byte[0], 0);
+        }
+    }
+
+    /**
+     * @return format detected for the station, or null if it is not known yet
+     */
+    public StreamFormat getStreamFormat(String url) {
+        StreamFormat format = probeCache.lookupFormat(url);
+        if (format != null) {
+            return format;
+        }
+
+        HttpUrl parsed = HttpUrl.parse(url);
+        return parsed != null && parsed.encodedPath().toLowerCase().endsWith(".m3u8") ? StreamFormat.HLS : null;
+    }
+
+    public void rememberStreamFormat(String url, StreamFormat format) {
+        probeCache.putFormat(url, format);
+    }
+
     /**
      * Sanitize header values to prevent issues with special characters
      */
-    private String sanitizeHeader(String headerValue) {
+    static String sanitizeHeader(String headerValue) {
         if (headerValue == null) {
             return null;
         }
@@ -223,10 +505,177 @@ public class IcySourceManager implements AudioSourceManager {
                          .replaceAll("\\s+", " "); // Replace multiple spaces with single space
     }
 
+    /**
+     * @return mirrors listed by the response if it is a PLS or plain M3U playlist, null if
+     *         it is audio or HLS
+     */
+    private List<String> readPlaylist(Response response) throws IOException {
+        if (!PlaylistResolver.isPlaylistResponse(response)) {
+            return null;
+        }
+
+        String body = response.peekBody(PlaylistResolver.MAX_PLAYLIST_SIZE).string().trim();
+        if (!PlaylistResolver.isPlaylist(response, body)) {
+            return null;
+        }
+
+        return PlaylistResolver.parse(response.request().url(), body);
+    }
+
+    /**
+     * @return cached mirrors if the URL is a station playlist, fetching the playlist again
+     *         when the URL looks like one but is not cached (e.g. a decoded track)
+     */
+    private List<String> playlistCandidates(String url, RequestPriority priority) throws IOException {
+        List<String> candidates = playlists.lookup(url);
+        if (candidates != null) {
+            return candidates;
+        }
+
+        HttpUrl parsed = HttpUrl.parse(url);
+        String path = parsed != null ? parsed.encodedPath().toLowerCase() : "";
+        if (!path.endsWith(".pls") && !path.endsWith(".m3u")) {
+            return null;
+        }
+
+        Request request = new Request.Builder().url(url).tag(RequestPriority.class, priority).build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Unexpected response code: " + response.code() + " for playlist: " + url);
+            }
+
+            candidates = readPlaylist(response);
+        }
+
+        if (candidates != null) {
+            playlists.put(url, candidates);
+        }
+        return candidates;
+    }
+
+    /**
+     * Open a dedicated upstream connection to the given stream URL. Station playlists are
+     * resolved to a mirror, the connection then stays on that mirror for reconnects
+     * unless it stalls.
+     */
+    public IcyHttpStream openStream(String url) throws IOException {
+        String streamUrl = url;
+        Response parked = handoff.take(url);
+        List<String> candidates;
+
+        if (parked != null) {
+            log.debug("Reusing connection opened by loadItem for URL: {}", url);
+            String winner = playlists.lookupWinner(url);
+            streamUrl = winner != null ? winner : url;
+            candidates = playlists.lookup(url);
+        } else {
+            candidates = playlistCandidates(url, RequestPriority.PLAYBACK);
+            if (candidates != null) {
+                PlaylistResolver.Winner winner = playlists.race(url, candidates, RequestPriority.PLAYBACK);
+                playlists.putWinner(url, winner.url);
+                streamUrl = winner.url;
+                parked = winner.response;
+            }
+        }
+
+        IcyHttpStream stream = new IcyHttpStream(streamUrl, streamHttpClient, config, executors, metrics, parked);
+        if (candidates != null) {
+            stream.setMirrors(candidates);
+        }
+
+        StreamFormat format = probeCache.lookupFormat(url);
+        if (format != null) {
+            stream.setStreamFormat(format);
+        }
+
+        return stream;
+    }
+
+    /**
+     * Open a metadata-only connection to the given stream URL. Station playlists are
+     * resolved like for playback, but connections parked by loadItem are left to the players.
+     */
+    public IcyHttpStream openMetadataMonitor(String url) throws IOException {
+        String streamUrl = url;
+        Response adopted = null;
+
+        List<String> candidates = playlistCandidates(url, RequestPriority.PROBE);
+        if (candidates != null) {
+            PlaylistResolver.Winner winner = playlists.race(url, candidates, RequestPriority.PROBE);
+            playlists.putWinner(url, winner.url);
+            streamUrl = winner.url;
+            adopted = winner.response;
+        }
+
+        IcyHttpStream stream = IcyHttpStream.openMetadataMonitor(streamUrl, streamHttpClient, config, executors, metrics, adopted);
+        if (candidates != null) {
+            stream.setMirrors(candidates);
+        }
+
+        return stream;
+    }
+
+    /**
+     * Start playing an HLS playlist. Playlists and segments are short requests, so they
+     * use the pooled client.
+     */
+    public HlsSegmentStream openHlsStream(String url) throws IOException {
+        HlsSegmentStream stream = new HlsSegmentStream(url, httpClient, config, executors);
+
+        try {
+            stream.start();
+        } catch (IOException | RuntimeException e) {
+            stream.close();
+            throw e;
+        }
+
+        return stream;
+    }
+
     public OkHttpClient getHttpClient() {
         return httpClient;
     }
 
+    // Read by the playlist resolver on every race, so it sees clients rebuilt on reload
+    private OkHttpClient getStreamHttpClient() {
+        return streamHttpClient;
+    }
+
+    public TrackMetadataListener getTrackMetadataListener() {
+        return trackMetadataListener;
+    }
+
+    /**
+     * Set the listener notified when the title of a playing track changes.
+     */
+    public void setTrackMetadataListener(TrackMetadataListener trackMetadataListener) {
+        this.trackMetadataListener = trackMetadataListener;
+    }
+
+    public StationHub getStationHub() {
+        return stationHub;
+    }
+
+    public StationHistory getStationHistory() {
+        return history;
+    }
+
+    public BatchLoader getBatchLoader() {
+        return batchLoader;
+    }
+
+    public MetadataMonitor getMetadataMonitor() {
+        return monitor;
+    }
+
+    public SharedTranscoder getSharedTranscoder() {
+        return sharedTranscoder;
+    }
+
+    public ScheduledExecutorService getScheduler() {
+        return executors.getScheduler();
+    }
+
     public MediaContainerRegistry getMediaContainerRegistry() {
         return containerRegistry;
     }
@@ -248,7 +697,11 @@ public class IcySourceManager implements AudioSourceManager {
 
     @Override
     public void shutdown() {
-        // Cleanup if needed
+        handoff.close();
+        monitor.close();
+        sharedTranscoder.close();
+        stationHub.close();
+        executors.shutdown();
         log.info("IcySourceManager shutdown");
     }
 }
@@ -0,0 +1,328 @@
+package com.zenkho.icy.source;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.stream.RequestPriority;
+import com.zenkho.icy.stream.StreamExecutors;
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Resolves PLS and plain M3U station playlists to a playing mirror.
+ * <p>
+ * Parsed entries are cached per playlist URL. Mirrors are raced happy-eyeballs style:
+ * the first one is tried right away and each next one after a short delay, or as soon as
+ * an earlier one fails. The first mirror to deliver audio bytes wins and the other
+ * attempts are cancelled, so dead mirrors cost a race delay instead of a timeout each.
+ */
+class PlaylistResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(PlaylistResolver.class);
+
+    // Playlists are small, anything bigger is not a playlist
+    static final int MAX_PLAYLIST_SIZE = 64 * 1024;
+    private static final int MAX_CANDIDATES = 8;
+
+    private final Config config;
+    private final Supplier<OkHttpClient> streamHttpClient;
+    private final StreamExecutors executors;
+    private final Map<String, Entry> entries;
+
+    PlaylistResolver(Config config, Supplier<OkHttpClient> streamHttpClient, StreamExecutors executors) {
+        this.config = config;
+        this.streamHttpClient = streamHttpClient;
+        this.executors = executors;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > config.getProbeCacheSize();
+            }
+        };
+    }
+
+    /**
+     * @return true if the response looks like a PLS or plain M3U playlist rather than audio
+     *         or an HLS playlist
+     */
+    static boolean isPlaylist(Response response, String body) {
+        if (body.startsWith("[playlist]")) {
+            return true;
+        }
+
+        return body.startsWith("#EXTM3U") ? !body.contains("#EXT-X-") : isPlaylistResponse(response) && looksLikeUrlList(body);
+    }
+
+    /**
+     * @return true if the headers or path announce a PLS or M3U playlist, so the body is
+     *         worth reading as text
+     */
+    static boolean isPlaylistResponse(Response response) {
+        String contentType = response.header("Content-Type");
+        if (contentType != null) {
+            String lowerContentType = contentType.toLowerCase();
+            if (lowerContentType.contains("scpls") || lowerContentType.contains("mpegurl") || lowerContentType.startsWith("text/")) {
+                return true;
+            }
+        }
+
+        String path = response.request().url().encodedPath().toLowerCase();
+        return path.endsWith(".pls") || path.endsWith(".m3u") || path.endsWith(".m3u8");
+    }
+
+    private static boolean looksLikeUrlList(String body) {
+        for (String line : body.split("\r?\n")) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                return trimmed.startsWith("http://") || trimmed.startsWith("https://");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse PLS ({@code FileN=} entries, in N order) or M3U (one URI per line).
+     */
+    static List<String> parse(HttpUrl base, String body) {
+        List<String> candidates = new ArrayList<>();
+
+        if (body.startsWith("[playlist]")) {
+            TreeMap<Integer, String> files = new TreeMap<>();
+
+            for (String line : body.split("\r?\n")) {
+                String trimmed = line.trim();
+                int equals = trimmed.indexOf('=');
+                if (equals < 5 || !trimmed.regionMatches(true, 0, "File", 0, 4)) {
+                    continue;
+                }
+
+                try {
+                    files.put(Integer.parseInt(trimmed.substring(4, equals).trim()), trimmed.substring(equals + 1).trim());
+                } catch (NumberFormatException ignored) {
+                    // Not a FileN entry
+                }
+            }
+
+            addResolved(base, files.values(), candidates);
+        } else {
+            List<String> lines = new ArrayList<>();
+            for (String line : body.split("\r?\n")) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                    lines.add(trimmed);
+                }
+            }
+
+            addResolved(base, lines, candidates);
+        }
+
+        return candidates;
+    }
+
+    private static void addResolved(HttpUrl base, Iterable<String> uris, List<String> candidates) {
+        for (String uri : uris) {
+            HttpUrl resolved = base.resolve(uri);
+            if (resolved != null && candidates.size() < MAX_CANDIDATES && !candidates.contains(resolved.toString())) {
+                candidates.add(resolved.toString());
+            }
+        }
+    }
+
+    synchronized void put(String playlistUrl, List<String> candidates) {
+        long ttl = config.getPlaylistCacheTtlMs();
+        if (ttl > 0 && !candidates.isEmpty()) {
+            entries.put(playlistUrl, new Entry(candidates, System.currentTimeMillis() + ttl));
+        }
+    }
+
+    synchronized void putWinner(String playlistUrl, String mirrorUrl) {
+        Entry entry = entries.get(playlistUrl);
+        if (entry != null) {
+            entry.winner = mirrorUrl;
+        }
+    }
+
+    /**
+     * @return mirror that last won the race for the playlist, or null if not known
+     */
+    synchronized String lookupWinner(String playlistUrl) {
+        Entry entry = entries.get(playlistUrl);
+        return entry != null && entry.expiresAt > System.currentTimeMillis() ? entry.winner : null;
+    }
+
+    /**
+     * @return cached mirrors of the playlist, or null if it is not known or expired
+     */
+    synchronized List<String> lookup(String playlistUrl) {
+        Entry entry = entries.get(playlistUrl);
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(playlistUrl);
+            return null;
+        }
+
+        return entry.candidates;
+    }
+
+    /**
+     * Connect to the mirrors in a staggered race.
+     *
+     * @param priority class of the mirror connects for the host connect budget
+     * @return open response of the first mirror that delivered audio bytes
+     */
+    Winner race(String playlistUrl, List<String> candidates, RequestPriority priority) throws IOException {
+        if (candidates.isEmpty()) {
+            throw new IOException("Playlist has no entries: " + playlistUrl);
+        }
+
+        Race race = new Race(candidates, priority);
+        race.launch(0);
+
+        try {
+            Winner winner = race.result.get();
+            log.debug("Mirror {} of playlist {} won the race", winner.url, playlistUrl);
+            return winner;
+        } catch (InterruptedException e) {
+            race.cancelExcept(null);
+            race.result.thenAccept(winner -> winner.response.close());
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while connecting to playlist mirrors");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new IOException("No mirror of playlist " + playlistUrl + " is reachable: " + cause.getMessage(), cause);
+        }
+    }
+
+    private class Race {
+        private final List<String> candidates;
+        private final RequestPriority priority;
+        private final List<Call> calls = new ArrayList<>();
+        private final CompletableFuture<Winner> result = new CompletableFuture<>();
+        private final AtomicInteger launched = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+
+        Race(List<String> candidates, RequestPriority priority) {
+            this.candidates = candidates;
+            this.priority = priority;
+        }
+
+        // Launch the given candidate unless a timer or an earlier failure already did
+        void launch(int index) {
+            if (index >= candidates.size() || result.isDone() || !launched.compareAndSet(index, index + 1)) {
+                return;
+            }
+
+            try {
+                executors.getIo().execute(() -> attempt(index));
+
+                if (index + 1 < candidates.size()) {
+                    executors.getScheduler().schedule(() -> launch(index + 1), config.getMirrorRaceDelayMs(), TimeUnit.MILLISECONDS);
+                }
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(new IOException("Plugin is shutting down", e));
+            }
+        }
+
+        void attempt(int index) {
+            String url = candidates.get(index);
+            Call call;
+
+            synchronized (calls) {
+                if (result.isDone()) {
+                    return;
+                }
+                call = streamHttpClient.get().newCall(new Request.Builder()
+                    .url(url)
+                    .header("Icy-MetaData", "1")
+                    .tag(RequestPriority.class, priority)
+                    .build());
+                calls.add(call);
+            }
+
+            Response response = null;
+            try {
+                response = call.execute();
+                ResponseBody body = response.body();
+
+                if (!response.isSuccessful() || body == null) {
+                    throw new IOException("HTTP " + response.code());
+                }
+
+                // Headers alone can come from a server whose source is down
+                if (!body.source().request(1)) {
+                    throw new IOException("Mirror sent no audio");
+                }
+
+                if (result.complete(new Winner(url, response))) {
+                    response = null;
+                    cancelExcept(call);
+                }
+            } catch (Exception e) {
+                log.debug("Mirror {} failed: {}", url, e.getMessage());
+
+                if (failed.incrementAndGet() == candidates.size()) {
+                    result.completeExceptionally(e);
+                } else {
+                    // Later candidates may already run on their timers, start the next one that does not
+                    launch(launched.get());
+                }
+            } finally {
+                if (response != null) {
+                    response.close();
+                }
+            }
+        }
+
+        void cancelExcept(Call winner) {
+            synchronized (calls) {
+                for (Call call : calls) {
+                    if (call != winner) {
+                        call.cancel();
+                    }
+                }
+            }
+        }
+    }
+
+    static class Winner {
+        final String url;
+        final Response response;
+
+        Winner(String url, Response response) {
+            this.url = url;
+            this.response = response;
+        }
+    }
+
+    private static class Entry {
+        private final List<String> candidates;
+        private final long expiresAt;
+        private String winner;
+
+        Entry(List<String> candidates, long expiresAt) {
+            this.candidates = candidates;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
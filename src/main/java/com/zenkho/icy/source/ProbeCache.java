@@ -0,0 +1,143 @@
+package com.zenkho.icy.source;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.stream.StreamFormat;
+import okhttp3.HttpUrl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of stream detection probe outcomes.
+ * <p>
+ * Both positive and negative results are cached per URL with separate TTLs.
+ * Hosts that failed to answer a probe at all are cached separately, so other
+ * URLs on the same dead host resolve without another connect timeout. The detected
+ * audio format of each station is kept for the positive TTL as well.
+ */
+class ProbeCache {
+
+    private final Config config;
+    private final Map<String, Entry> urls;
+    private final Map<String, Long> failedHosts;
+    private final Map<String, FormatEntry> formats;
+
+    ProbeCache(Config config) {
+        this.config = config;
+        this.urls = new LruMap<>(config.getProbeCacheSize());
+        this.failedHosts = new LruMap<>(Math.max(16, config.getProbeCacheSize() / 4));
+        this.formats = new LruMap<>(config.getProbeCacheSize());
+    }
+
+    /**
+     * @return cached outcome for the URL, or null if it has to be probed
+     */
+    synchronized Boolean lookup(String url) {
+        long now = System.currentTimeMillis();
+
+        Entry entry = urls.get(url);
+        if (entry != null) {
+            if (entry.expiresAt > now) {
+                return entry.stream;
+            }
+            urls.remove(url);
+        }
+
+        String host = hostOf(url);
+        if (host != null) {
+            Long hostExpiresAt = failedHosts.get(host);
+            if (hostExpiresAt != null) {
+                if (hostExpiresAt > now) {
+                    return false;
+                }
+                failedHosts.remove(host);
+            }
+        }
+
+        return null;
+    }
+
+    synchronized void put(String url, boolean stream) {
+        long ttl = stream ? config.getProbeCachePositiveTtlMs() : config.getProbeCacheNegativeTtlMs();
+        if (ttl <= 0) {
+            return;
+        }
+
+        urls.put(url, new Entry(stream, System.currentTimeMillis() + ttl));
+    }
+
+    synchronized void putHostFailure(String url) {
+        long ttl = config.getProbeCacheHostFailureTtlMs();
+        String host = hostOf(url);
+        if (ttl <= 0 || host == null) {
+            return;
+        }
+
+        failedHosts.put(host, System.currentTimeMillis() + ttl);
+    }
+
+    /**
+     * @return format detected for the station, or null if it has to be sniffed
+     */
+    synchronized StreamFormat lookupFormat(String url) {
+        FormatEntry entry = formats.get(url);
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            formats.remove(url);
+            return null;
+        }
+
+        return entry.format;
+    }
+
+    synchronized void putFormat(String url, StreamFormat format) {
+        long ttl = config.getProbeCachePositiveTtlMs();
+        if (ttl <= 0) {
+            return;
+        }
+
+        formats.put(url, new FormatEntry(format, System.currentTimeMillis() + ttl));
+    }
+
+    private static String hostOf(String url) {
+        HttpUrl parsed = HttpUrl.parse(url);
+        return parsed != null ? parsed.host() : null;
+    }
+
+    private static class Entry {
+        private final boolean stream;
+        private final long expiresAt;
+
+        Entry(boolean stream, long expiresAt) {
+            this.stream = stream;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class FormatEntry {
+        private final StreamFormat format;
+        private final long expiresAt;
+
+        FormatEntry(StreamFormat format, long expiresAt) {
+            this.format = format;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private final int maxSize;
+
+        LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.zenkho.icy.stream;
+
+/**
+ * Frame header parsing for the byte-aligned formats ICY stations broadcast (MP3 and ADTS).
+ * Used to find frame boundaries without running a decoder.
+ */
+final class AudioFrameSync {
+
+    static final int MP3_HEADER_SIZE = 4;
+    static final int ADTS_HEADER_SIZE = 7;
+
+    private static final int[][] MPEG1_BITRATES = {
+        { 0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448 }, // Layer I
+        { 0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384 },    // Layer II
+        { 0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320 }      // Layer III
+    };
+
+    private static final int[][] MPEG2_BITRATES = {
+        { 0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256 },    // Layer I
+        { 0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160 },         // Layer II
+        { 0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160 }          // Layer III
+    };
+
+    private static final int[] MPEG1_SAMPLE_RATES = { 44100, 48000, 32000 };
+
+    private AudioFrameSync() {
+    }
+
+    /**
+     * @return length of the MP3 frame starting at the offset including its header, or -1 if
+     *         the bytes there are not a valid (non free-format) MPEG audio header
+     */
+    static int mp3FrameLength(byte[] data, int offset) {
+        int b1 = data[offset + 1] & 0xFF;
+        int b2 = data[offset + 2] & 0xFF;
+
+        if ((data[offset] & 0xFF) != 0xFF || (b1 & 0xE0) != 0xE0) {
+            return -1;
+        }
+
+        int version = (b1 >> 3) & 0x03;  // 0 = MPEG 2.5, 1 = reserved, 2 = MPEG 2, 3 = MPEG 1
+        int layer = (b1 >> 1) & 0x03;    // 1 = Layer III, 2 = Layer II, 3 = Layer I
+        int bitrateIndex = (b2 >> 4) & 0x0F;
+        int sampleRateIndex = (b2 >> 2) & 0x03;
+        int padding = (b2 >> 1) & 0x01;
+
+        if (version == 1 || layer == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+            return -1;
+        }
+
+        int layerIndex = 3 - layer;
+        int bitrate = (version == 3 ? MPEG1_BITRATES : MPEG2_BITRATES)[layerIndex][bitrateIndex] * 1000;
+        int sampleRate = MPEG1_SAMPLE_RATES[sampleRateIndex] >> (version == 3 ? 0 : version == 2 ? 1 : 2);
+
+        if (layer == 3) {
+            return (12 * bitrate / sampleRate + padding) * 4;
+        } else if (layer == 1 && version != 3) {
+            return 72 * bitrate / sampleRate + padding;
+        } else {
+            return 144 * bitrate / sampleRate + padding;
+        }
+    }
+
+    /**
+     * @return length of the ADTS frame starting at the offset including its header, or -1 if
+     *         the bytes there are not a valid ADTS header
+     */
+    static int adtsFrameLength(byte[] data, int offset) {
+        int b1 = data[offset + 1] & 0xFF;
+
+        // Sync word, and layer must be 00 which is what tells ADTS apart from MPEG audio
+        if ((data[offset] & 0xFF) != 0xFF || (b1 & 0xF6) != 0xF0) {
+            return -1;
+        }
+
+        int sampleRateIndex = (data[offset + 2] >> 2) & 0x0F;
+        if (sampleRateIndex > 12) {
+            return -1;
+        }
+
+        int length = ((data[offset + 3] & 0x03) << 11)
+            | ((data[offset + 4] & 0xFF) << 3)
+            | ((data[offset + 5] & 0xE0) >> 5);
+
+        return length >= ADTS_HEADER_SIZE ? length : -1;
+    }
+}
@@ -0,0 +1,113 @@
+package com.zenkho.icy.stream;
+
+/**
+ * Follows frame boundaries in the audio bytes handed to the decoder, so a stream that is
+ * spliced onto a new connection can finish the interrupted frame and continue on a frame
+ * boundary of the new connection instead of feeding the decoder a torn frame.
+ */
+class FrameAligner {
+
+    enum Format {
+        MP3(AudioFrameSync.MP3_HEADER_SIZE),
+        ADTS(AudioFrameSync.ADTS_HEADER_SIZE);
+
+        private final int headerSize;
+
+        Format(int headerSize) {
+            this.headerSize = headerSize;
+        }
+
+        int frameLength(byte[] data, int offset) {
+            return this == MP3 ? AudioFrameSync.mp3FrameLength(data, offset) : AudioFrameSync.adtsFrameLength(data, offset);
+        }
+    }
+
+    private final Format format;
+    private final byte[] header;
+    private int headerFill;
+    private int frameRemaining;
+    private boolean synced;
+
+    FrameAligner(Format format) {
+        this.format = format;
+        this.header = new byte[format.headerSize];
+    }
+
+    Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Account for bytes that were handed to the decoder.
+     */
+    void track(byte[] data, int offset, int length) {
+        int position = offset;
+        int end = offset + length;
+
+        while (position < end) {
+            if (frameRemaining > 0) {
+                int skip = Math.min(frameRemaining, end - position);
+                frameRemaining -= skip;
+                position += skip;
+                continue;
+            }
+
+            header[headerFill++] = data[position++];
+
+            if (headerFill == header.length) {
+                int frameLength = format.frameLength(header, 0);
+
+                if (frameLength > 0) {
+                    frameRemaining = frameLength - header.length;
+                    headerFill = 0;
+                    synced = true;
+                } else {
+                    // Not on a boundary, slide the window by one byte
+                    System.arraycopy(header, 1, header, 0, header.length - 1);
+                    headerFill--;
+                    synced = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return bytes still missing from the frame the decoder is in the middle of, 0 if the
+     *         decoder is on a frame boundary or the position is not known
+     */
+    int bytesToFrameEnd() {
+        if (!synced) {
+            return 0;
+        }
+
+        if (headerFill > 0) {
+            // Partial header of a frame that will never complete, nothing sensible to pad
+            return 0;
+        }
+
+        return frameRemaining;
+    }
+
+    /**
+     * Find the first frame in the buffer that is followed by another valid frame header.
+     *
+     * @return offset of the frame, or -1 if no confirmed boundary was found
+     */
+    int findFrameStart(byte[] data, int length) {
+        int headerSize = header.length;
+
+        for (int offset = 0; offset + headerSize <= length; offset++) {
+            int frameLength = format.frameLength(data, offset);
+            if (frameLength <= 0) {
+                continue;
+            }
+
+            int next = offset + frameLength;
+            if (next + headerSize <= length && format.frameLength(data, next) > 0) {
+                return offset;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -2,7 +2,9 @@ package com.zenkho.icy.stream;
 
 import com.sedmelluq.discord.lavaplayer.tools.io.SeekableInputStream;
 import com.zenkho.icy.IcyStreamPlugin.Config;
-import com.zenkho.icy.metadata.IcyMetadataParser;
+import com.zenkho.icy.metadata.IcyMetadataListener;
+import com.zenkho.icy.metadata.IcyMetadataParser.IcyMetadata;
+import com.zenkho.icy.metrics.IcyMetrics;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -11,41 +13,130 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class IcyHttpStream implements Closeable {
 
     private static final Logger log = LoggerFactory.getLogger(IcyHttpStream.class);
 
-    private final String url;
+    // Reconnects closer together than this count as one outage for the retry limit
+    private static final long STABLE_CONNECTION_MS = 10000;
+    // Stall drops per stream before the watchdog gives up on it, never reset by stable periods
+    private static final int MAX_STALL_DROPS = 3;
+    private static final int RESYNC_WINDOW = 16 * 1024;
+    private static final int DEFAULT_BITRATE_KBPS = 128;
+    private static final int MAX_READ_AHEAD_BYTES = 16 * 1024 * 1024;
+
+    private volatile String url;
+    private volatile List<String> mirrors = Collections.emptyList();
     private final OkHttpClient httpClient;
     private final Config config;
-    private Response response;
-    private IcyStreamInputStream inputStream;
+    private final StreamExecutors executors;
+    private final IcyMetrics metrics;
+    private final IcyMetrics.StreamMeter streamMeter;
+    private final AtomicReference<String> connectionHost = new AtomicReference<>();
+    private final ThroughputMonitor throughput;
+    private final boolean metadataOnly;
+    private volatile ScheduledFuture<?> watchdog;
+    private volatile boolean stalled;
+    private int stallDrops;
+    private final ReconnectingInputStream audioStream;
+    private volatile Response response;
+    private volatile InputStream inputStream;
+    private volatile FrameAligner.Format frameFormat;
+    private volatile StreamFormat streamFormat;
+    private volatile String contentType;
+    private volatile CompletableFuture<Void> pendingReconnect;
+    private volatile boolean closed;
+    private volatile ReadAheadInputStream readAhead;
     private int icyMetaInt;
-    private String streamTitle;
+    private int bitrateKbps;
+    private volatile String streamTitle;
+    private volatile IcyMetadataListener metadataListener;
     private int reconnectAttempts;
+    private long lastReconnectAt;
+    private volatile long connectStartedAt;
+
+    /**
+     * @param adopted already open response for this URL to use instead of connecting, may be null
+     */
+    public IcyHttpStream(String url, OkHttpClient httpClient, Config config, StreamExecutors executors,
+                         IcyMetrics metrics, Response adopted) throws IOException {
+        this(url, httpClient, config, executors, metrics, adopted, false);
+    }
 
-    public IcyHttpStream(String url, OkHttpClient httpClient, Config config) throws IOException {
+    private IcyHttpStream(String url, OkHttpClient httpClient, Config config, StreamExecutors executors,
+                          IcyMetrics metrics, Response adopted, boolean metadataOnly) throws IOException {
         this.url = url;
         this.httpClient = httpClient;
         this.config = config;
+        this.executors = executors;
+        this.metrics = metrics;
+        this.streamMeter = metrics.newStreamMeter();
+        this.throughput = new ThroughputMonitor(config);
         this.reconnectAttempts = 0;
-        connect();
+        this.audioStream = new ReconnectingInputStream();
+        this.metadataOnly = metadataOnly;
+        connect(adopted);
+
+        // A monitor reads at line rate by design, there is no bitrate to fall below
+        if (!metadataOnly) {
+            startWatchdog();
+        }
     }
 
-    private void connect() throws IOException {
+    /**
+     * Open a stream that is only read for its metadata, see {@link #skipAudio()}.
+     *
+     * @param adopted already open response for this URL to use instead of connecting, may be null
+     */
+    public static IcyHttpStream openMetadataMonitor(String url, OkHttpClient httpClient, Config config,
+                                                    StreamExecutors executors, IcyMetrics metrics,
+                                                    Response adopted) throws IOException {
+        return new IcyHttpStream(url, httpClient, config, executors, metrics, adopted, true);
+    }
+
+    private void connect(Response adopted) throws IOException {
         try {
-            Request request = new Request.Builder()
-                .url(url)
-                .header("Icy-MetaData", "1")
-                .header("User-Agent", "Lavalink ICY Stream Plugin/1.1.1")
-                .header("Accept", "*/*")
-                .header("Connection", "close")
-                .build();
+            if (adopted != null) {
+                response = adopted;
+            } else {
+                Request request = new Request.Builder()
+                    .url(url)
+                    .header("Icy-MetaData", "1")
+                    .header("User-Agent", "Lavalink ICY Stream Plugin/1.1.1")
+                    .header("Accept", "*/*")
+                    .header("Connection", "close")
+                    .tag(RequestPriority.class, metadataOnly ? RequestPriority.PROBE : RequestPriority.PLAYBACK)
+                    .build();
+
+                long startedAt = System.nanoTime();
+                try {
+                    response = httpClient.newCall(request).execute();
+                } catch (IOException e) {
+                    metrics.recordConnect(startedAt, false);
+                    throw e;
+                }
 
-            response = httpClient.newCall(request).execute();
+                metrics.recordConnect(startedAt, response.isSuccessful());
+                // Time to first byte is taken on the first read
+                connectStartedAt = startedAt;
+            }
 
             if (!response.isSuccessful()) {
                 String errorMsg = String.format("HTTP %d: %s for URL: %s", 
@@ -83,18 +174,30 @@ public class IcyHttpStream implements Closeable {
                 icyGenre != null ? icyGenre : "Unknown", 
                 icyBr != null ? icyBr : "Unknown");
 
+            bitrateKbps = parseBitrate(icyBr);
+            throughput.setBitrate(bitrateKbps);
+
             ResponseBody body = response.body();
             if (body == null) {
                 response.close();
                 throw new IOException("Response body is null for URL: " + url);
             }
 
-            InputStream rawStream = body.byteStream();
+            connectionHost.set(metrics.connectionOpened(response.request().url().host()));
             
-            if (icyMetaInt > 0 && config.isEnableMetadata()) {
-                inputStream = new IcyMetadataInputStream(rawStream, icyMetaInt);
+            contentType = response.header("Content-Type");
+            if (streamFormat == null) {
+                StreamFormat announced = StreamFormat.fromContentType(contentType);
+                frameFormat = announced != null ? announced.getFrameFormat() : null;
+            }
+
+            int metaInt = config.isEnableMetadata() ? icyMetaInt : 0;
+            if (metadataOnly || config.isOkioPipeline()) {
+                inputStream = new IcySourceInputStream(body.source(), metaInt, this::onMetadata, metrics);
+            } else if (metaInt > 0) {
+                inputStream = new IcyMetadataInputStream(body.byteStream(), metaInt, this::onMetadata, metrics);
             } else {
-                inputStream = new IcyStreamInputStream(rawStream);
+                inputStream = new IcyStreamInputStream(body.byteStream());
             }
             
         } catch (IllegalArgumentException e) {
@@ -109,7 +212,7 @@ public class IcyHttpStream implements Closeable {
     /**
      * Sanitize header values to prevent issues with special characters
      */
-    private String sanitizeHeader(String headerValue) {
+    static String sanitizeHeader(String headerValue) {
         if (headerValue == null || headerValue.trim().isEmpty()) {
             return null;
         }
@@ -120,225 +223,551 @@ public class IcyHttpStream implements Closeable {
                          .replaceAll("\\s+", " "); // Replace multiple spaces with single space
     }
 
+    // icy-br is sometimes a list like "128,128" for multiple qualities, use the first one
+    private static int parseBitrate(String icyBr) {
+        if (icyBr == null) {
+            return 0;
+        }
+
+        int end = icyBr.indexOf(',');
+        try {
+            int bitrate = Integer.parseInt((end >= 0 ? icyBr.substring(0, end) : icyBr).trim());
+            return Math.max(bitrate, 0);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Stream for the decoder. With read-ahead enabled a dedicated reader buffers the audio
+     * ahead of the decoder, so short network stalls are absorbed instead of underrunning.
+     * In virtual thread mode the socket is always read this way, so the decoder thread
+     * only ever waits on the buffer.
+     */
     public SeekableInputStream getInputStream() {
-        return new NonSeekableInputStream(inputStream);
+        if (!config.isReadAhead() && !executors.isVirtualThreads()) {
+            return new NonSeekableInputStream(audioStream);
+        }
+
+        synchronized (this) {
+            if (readAhead == null) {
+                int capacity = readAheadCapacity();
+                readAhead = new ReadAheadInputStream(
+                    audioStream,
+                    capacity,
+                    (int) ((long) capacity * config.getReadAheadLowWatermarkPercent() / 100),
+                    (int) ((long) capacity * config.getReadAheadHighWatermarkPercent() / 100),
+                    reader -> executors.startReader(reader, "icy-read-ahead-"),
+                    metrics
+                );
+                log.debug("Read-ahead of {} bytes enabled for {}", capacity, url);
+            }
+        }
+
+        return new NonSeekableInputStream(readAhead);
+    }
+
+    private int readAheadCapacity() {
+        if (config.getReadAheadBytes() > 0) {
+            return Math.min(config.getReadAheadBytes(), MAX_READ_AHEAD_BYTES);
+        }
+
+        int kbps = bitrateKbps > 0 ? bitrateKbps : DEFAULT_BITRATE_KBPS;
+        long bytes = (long) kbps * 1000 / 8 * config.getReadAheadMs() / 1000;
+        return (int) Math.max(RESYNC_WINDOW, Math.min(bytes, MAX_READ_AHEAD_BYTES));
+    }
+
+    /**
+     * @return icy-metaint of the current connection, 0 if the station sends no metadata
+     */
+    public int getMetadataInterval() {
+        return icyMetaInt;
+    }
+
+    /**
+     * Discard the audio until the stream is closed or fails, so only its metadata blocks are
+     * parsed. Audio is skipped in Okio's segments up to each metadata block and never copied
+     * or decoded. Reconnects like a playing stream.
+     */
+    public void skipAudio() throws IOException {
+        while (!closed) {
+            audioStream.discard();
+        }
+    }
+
+    /**
+     * @return bitrate announced by the station in kbps, 0 if unknown
+     */
+    public int getBitrateKbps() {
+        return bitrateKbps;
+    }
+
+    /**
+     * Demuxed audio bytes (metadata already stripped), used by the station hub
+     * which does its own buffering on top of it.
+     */
+    InputStream getAudioStream() {
+        return audioStream;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getContentType() {
+        return contentType;
     }
 
-    private void reconnect() throws IOException {
+    /**
+     * Set the format detected for the station, which takes precedence over the
+     * Content-Type when resyncing after a reconnect.
+     */
+    public void setStreamFormat(StreamFormat streamFormat) {
+        this.streamFormat = streamFormat;
+        this.frameFormat = streamFormat.getFrameFormat();
+    }
+
+    private void onMetadata(IcyMetadata metadata) {
+        // A fresh demuxer after a reconnect reports the current title again
+        if (metadata.getStreamTitle().equals(streamTitle)) {
+            return;
+        }
+
+        streamTitle = metadata.getStreamTitle();
+        log.info("Now playing: {}", streamTitle);
+
+        IcyMetadataListener listener = metadataListener;
+        if (listener != null) {
+            listener.onMetadata(metadata);
+        }
+    }
+
+    /**
+     * Set the listener notified when the stream title changes.
+     */
+    public void setMetadataListener(IcyMetadataListener metadataListener) {
+        this.metadataListener = metadataListener;
+    }
+
+    public String getStreamTitle() {
+        return streamTitle;
+    }
+
+    /**
+     * Set the mirrors of the station playlist this stream was resolved from. A stalled
+     * stream reconnects to the next mirror instead of the same one.
+     */
+    public void setMirrors(List<String> mirrors) {
+        this.mirrors = mirrors;
+    }
+
+    // Checked every second, so the setting can be switched at runtime
+    private void startWatchdog() {
+        try {
+            watchdog = executors.getScheduler().scheduleWithFixedDelay(this::checkStall, 1, 1, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Not watching stream {} for stalls, plugin is shutting down", url);
+        }
+    }
+
+    /**
+     * Drop a connection that stays below the bitrate for the stall window. The reader then
+     * fails and reconnects like after any other drop, instead of stuttering until the
+     * read timeout, which a drip-fed stream never reaches.
+     */
+    private void checkStall() {
+        if (closed || pendingReconnect != null || !config.isStallWatchdog() || !config.isAutoReconnect()
+            || !throughput.isStalled()) {
+            return;
+        }
+
+        // Reconnecting did not help before, keep playing what the station sends
+        if (stallDrops >= MAX_STALL_DROPS) {
+            log.warn("Stream {} stalled again after {} stall reconnects, no longer watching it", url, stallDrops);
+            watchdog.cancel(false);
+            return;
+        }
+
+        stallDrops++;
+        log.warn("Stream {} stayed below {}% of its bitrate for {}ms, reconnecting ({}/{})",
+            url, config.getStallThresholdPercent(), config.getStallWindowMs(), stallDrops, MAX_STALL_DROPS);
+        metrics.recordStall();
+        stalled = true;
+        closeConnection();
+    }
+
+    private void switchMirror() {
+        List<String> candidates = mirrors;
+        if (candidates.size() < 2) {
+            return;
+        }
+
+        String next = candidates.get((candidates.indexOf(url) + 1) % candidates.size());
+        log.info("Switching stalled stream {} to mirror {}", url, next);
+        url = next;
+    }
+
+    /**
+     * Reconnect after the upstream dropped. Attempts run on the I/O pool and are spaced
+     * with exponential backoff and jitter on the scheduler, so the reading thread only
+     * waits for the outcome and never sleeps between attempts. Meanwhile the decoder
+     * keeps playing whatever is already buffered downstream.
+     */
+    private void reconnect(IOException cause) throws IOException {
         if (!config.isAutoReconnect()) {
-            throw new IOException("Stream connection lost and auto-reconnect is disabled");
+            throw new IOException("Stream connection lost and auto-reconnect is disabled", cause);
         }
 
-        if (reconnectAttempts >= config.getMaxRetries()) {
-            throw new IOException("Max reconnection attempts reached: " + reconnectAttempts);
+        log.warn("Lost connection to stream {}: {}", url, cause.getMessage());
+        closeConnection();
+
+        if (stalled) {
+            stalled = false;
+            switchMirror();
         }
 
-        reconnectAttempts++;
-        log.info("Reconnecting to stream (attempt {}/{})", reconnectAttempts, config.getMaxRetries());
+        // Drops right after a reconnect continue counting towards the same retry limit
+        int firstAttempt = System.currentTimeMillis() - lastReconnectAt < STABLE_CONNECTION_MS ? reconnectAttempts + 1 : 1;
+        if (firstAttempt > config.getMaxRetries()) {
+            throw new IOException("Max reconnection attempts reached: " + reconnectAttempts, cause);
+        }
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        pendingReconnect = result;
+        scheduleAttempt(result, firstAttempt);
 
         try {
-            Thread.sleep(config.getRetryDelay());
+            result.get();
         } catch (InterruptedException e) {
+            result.cancel(false);
             Thread.currentThread().interrupt();
-            throw new IOException("Reconnection interrupted", e);
+            throw new InterruptedIOException("Reconnection interrupted");
+        } catch (CancellationException e) {
+            throw new IOException("Stream closed while reconnecting", cause);
+        } catch (ExecutionException e) {
+            Throwable failure = e.getCause();
+            throw failure instanceof IOException ? (IOException) failure : new IOException(failure);
+        } finally {
+            pendingReconnect = null;
         }
 
-        close();
-        connect();
-        reconnectAttempts = 0; // Reset on successful reconnection
-        log.info("Successfully reconnected to stream");
+        lastReconnectAt = System.currentTimeMillis();
+        streamMeter.reset();
+        throughput.reset();
+        log.info("Successfully reconnected to stream {}", url);
     }
 
-    @Override
-    public void close() throws IOException {
-        if (inputStream != null) {
-            inputStream.close();
-        }
-        if (response != null) {
-            response.close();
+    private void scheduleAttempt(CompletableFuture<Void> result, int attempt) {
+        long delay = attempt == 1 ? 0 : backoffDelay(attempt - 1);
+
+        try {
+            executors.getScheduler().schedule(
+                () -> executors.getIo().execute(() -> attemptReconnect(result, attempt)),
+                delay,
+                TimeUnit.MILLISECONDS
+            );
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new IOException("Plugin is shutting down", e));
         }
     }
 
-    // Base input stream wrapper
-    private static class IcyStreamInputStream extends InputStream {
-        protected final InputStream delegate;
+    private void attemptReconnect(CompletableFuture<Void> result, int attempt) {
+        if (result.isDone() || closed) {
+            result.cancel(false);
+            return;
+        }
 
-        IcyStreamInputStream(InputStream delegate) {
-            this.delegate = delegate;
+        reconnectAttempts = attempt;
+        log.info("Reconnecting to stream (attempt {}/{})", attempt, config.getMaxRetries());
+
+        try {
+            connect(null);
+            metrics.recordReconnectSuccess();
+
+            if (!result.complete(null)) {
+                closeConnection(); // Reader gave up while we were connecting
+            }
+        } catch (IOException e) {
+            metrics.recordReconnectFailure(attempt >= config.getMaxRetries());
+
+            if (attempt >= config.getMaxRetries()) {
+                result.completeExceptionally(new IOException("Max reconnection attempts reached: " + attempt, e));
+            } else {
+                log.debug("Reconnection attempt {} to {} failed: {}", attempt, url, e.getMessage());
+                scheduleAttempt(result, attempt + 1);
+            }
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
         }
+    }
 
-        @Override
-        public int read() throws IOException {
-            return delegate.read();
+    private long backoffDelay(int retry) {
+        long base = Math.max(1, config.getRetryDelay());
+        long delay = Math.min(config.getMaxRetryDelayMs(), base << Math.min(retry - 1, 16));
+        // Half fixed, half random, so listeners of a failed host do not reconnect in lockstep
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private void closeConnection() {
+        String host = connectionHost.getAndSet(null);
+        if (host != null) {
+            metrics.connectionClosed(host);
         }
 
-        @Override
-        public int read(byte[] b, int off, int len) throws IOException {
-            return delegate.read(b, off, len);
+        Response current = response;
+        if (current != null) {
+            current.close();
         }
+    }
 
-        @Override
-        public void close() throws IOException {
-            delegate.close();
+    @Override
+    public void close() throws IOException {
+        closed = true;
+
+        ScheduledFuture<?> check = watchdog;
+        if (check != null) {
+            check.cancel(false);
         }
 
-        @Override
-        public int available() throws IOException {
-            return delegate.available();
+        CompletableFuture<Void> reconnect = pendingReconnect;
+        if (reconnect != null) {
+            reconnect.cancel(false);
         }
-    }
 
-    // Input stream that handles ICY metadata
-    private class IcyMetadataInputStream extends IcyStreamInputStream {
-        private final int metaInt;
-        private int bytesUntilMetadata;
-        private final IcyMetadataParser metadataParser;
+        // Wakes the read-ahead reader if it is waiting for space
+        ReadAheadInputStream buffer = readAhead;
+        if (buffer != null) {
+            buffer.close();
+        }
 
-        IcyMetadataInputStream(InputStream delegate, int metaInt) {
-            super(delegate);
-            this.metaInt = metaInt;
-            this.bytesUntilMetadata = metaInt;
-            this.metadataParser = new IcyMetadataParser();
+        InputStream current = inputStream;
+        if (current != null) {
+            current.close();
         }
+        closeConnection();
+    }
+
+    /**
+     * Audio bytes handed to the decoder. Survives upstream drops by reconnecting, then
+     * finishes the frame that was cut off and resumes on a frame boundary of the new
+     * connection, so the decoder never sees a torn frame.
+     */
+    private class ReconnectingInputStream extends InputStream {
+        private final byte[] single = new byte[1];
+        private final byte[] resync = new byte[RESYNC_WINDOW];
+        private int resyncPosition;
+        private int resyncLength;
+        private int padding;
+        private FrameAligner aligner;
 
         @Override
         public int read() throws IOException {
-            if (bytesUntilMetadata == 0) {
-                readMetadata();
-                bytesUntilMetadata = metaInt;
-            }
-            
-            bytesUntilMetadata--;
-            return delegate.read();
+            int result;
+            do {
+                result = read(single, 0, 1);
+            } while (result == 0);
+
+            return result < 0 ? -1 : single[0] & 0xFF;
         }
 
         @Override
         public int read(byte[] b, int off, int len) throws IOException {
-            if (bytesUntilMetadata == 0) {
-                readMetadata();
-                bytesUntilMetadata = metaInt;
+            if (len == 0) {
+                return 0;
             }
 
-            int toRead = Math.min(len, bytesUntilMetadata);
-            int bytesRead = delegate.read(b, off, toRead);
-            
-            if (bytesRead > 0) {
-                bytesUntilMetadata -= bytesRead;
+            while (true) {
+                if (closed) {
+                    throw new IOException("Stream is closed");
+                }
+
+                int read;
+
+                if (padding > 0) {
+                    read = Math.min(len, padding);
+                    Arrays.fill(b, off, off + read, (byte) 0);
+                    padding -= read;
+                } else if (resyncPosition < resyncLength) {
+                    read = Math.min(len, resyncLength - resyncPosition);
+                    System.arraycopy(resync, resyncPosition, b, off, read);
+                    resyncPosition += read;
+                } else {
+                    read = readUpstream(b, off, len);
+                    if (read < 0) {
+                        splice();
+                        continue;
+                    }
+                }
+
+                track(b, off, read);
+                return read;
             }
-            
-            return bytesRead;
         }
 
-        private void readMetadata() throws IOException {
-            try {
-                int size = delegate.read();
-                if (size < 0) {
-                    throw new IOException("Unexpected end of stream while reading metadata size");
+        /**
+         * Discard audio up to the next metadata block, for {@link #skipAudio()}. Bypasses the
+         * resync, throughput and byte accounting of {@link #read(byte[], int, int)}, which is
+         * fine for metadata monitors only: their audio never reaches a decoder, so a
+         * reconnect needs no frame resync.
+         */
+        void discard() throws IOException {
+            while (true) {
+                if (closed) {
+                    throw new IOException("Stream is closed");
                 }
 
-                int metadataLength = size * 16;
-                if (metadataLength == 0) {
-                    return; // No metadata to read
-                }
-                
-                // Sanity check for metadata length
-                if (metadataLength > 16 * 255) { // Maximum possible metadata length
-                    log.warn("Metadata length seems too large: {} bytes, skipping", metadataLength);
-                    delegate.skip(metadataLength);
+                try {
+                    inputStream.skip(Long.MAX_VALUE);
                     return;
+                } catch (IOException e) {
+                    if (closed || isInterruption(e)) {
+                        throw e;
+                    }
+
+                    reconnect(e);
                 }
+            }
+        }
 
-                byte[] metadataBytes = new byte[metadataLength];
-                int totalBytesRead = 0;
-                
-                while (totalBytesRead < metadataLength) {
-                    int result = delegate.read(metadataBytes, totalBytesRead, metadataLength - totalBytesRead);
-                    if (result < 0) {
-                        throw new IOException("Unexpected end of stream while reading metadata");
-                    }
-                    totalBytesRead += result;
+        @Override
+        public int available() throws IOException {
+            if (padding > 0 || resyncPosition < resyncLength) {
+                return padding + resyncLength - resyncPosition;
+            }
+
+            return inputStream.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            IcyHttpStream.this.close();
+        }
+
+        /**
+         * @return bytes read, or -1 if the connection was replaced and the splice must be prepared
+         */
+        private int readUpstream(byte[] b, int off, int len) throws IOException {
+            IOException failure;
+
+            try {
+                int read = -1;
+                throughput.beforeRead();
+                try {
+                    read = inputStream.read(b, off, len);
+                } finally {
+                    throughput.afterRead(read);
                 }
 
-                // Process metadata with proper encoding handling
-                String metadata = new String(metadataBytes, "UTF-8").trim();
-                
-                // Remove null bytes that might be present in metadata
-                metadata = metadata.replaceAll("\0", "").trim();
-                
-                if (!metadata.isEmpty()) {
-                    String title = metadataParser.parseStreamTitle(metadata);
-                    
-                    if (title != null && !title.equals(streamTitle)) {
-                        streamTitle = title;
-                        log.info("Now playing: {}", streamTitle);
-                        // TODO: Emit metadata update event to Lavalink
-                    }
+                if (read > 0) {
+                    countBytes(read);
+                }
+                if (read >= 0) {
+                    return read;
                 }
-                
+
+                failure = new EOFException("Upstream ended the stream");
             } catch (IOException e) {
-                log.error("Error reading ICY metadata, continuing without metadata: {}", e.getMessage());
-                // Don't throw the exception, just log it and continue
-            } catch (Exception e) {
-                log.error("Unexpected error processing ICY metadata: {}", e.getMessage(), e);
-                // Don't throw the exception, just log it and continue
+                if (closed || isInterruption(e)) {
+                    throw e;
+                }
+
+                failure = e;
             }
+
+            reconnect(failure);
+            return -1;
         }
-    }
 
-    // SeekableInputStream adapter (non-seekable)
-    private static class NonSeekableInputStream extends SeekableInputStream {
-        private final InputStream delegate;
+        private void countBytes(int read) {
+            long startedAt = connectStartedAt;
+            if (startedAt != 0) {
+                connectStartedAt = 0;
+                metrics.recordFirstByte(startedAt);
+            }
 
-        NonSeekableInputStream(InputStream delegate) {
-            super(0, Long.MAX_VALUE);
-            this.delegate = delegate;
+            streamMeter.onBytes(read);
         }
 
-        @Override
-        public int read() throws IOException {
-            return delegate.read();
-        }
+        private void splice() throws IOException {
+            FrameAligner.Format format = frameFormat;
 
-        @Override
-        public int read(byte[] b, int off, int len) throws IOException {
-            return delegate.read(b, off, len);
+            if (aligner == null || format == null || aligner.getFormat() != format) {
+                aligner = format != null ? new FrameAligner(format) : null;
+                resyncLength = 0;
+                resyncPosition = 0;
+                return;
+            }
+
+            padding = aligner.bytesToFrameEnd();
+            resyncPosition = 0;
+            resyncLength = 0;
+
+            while (resyncLength < resync.length) {
+                int read = readUpstream(resync, resyncLength, resync.length - resyncLength);
+                if (read < 0) {
+                    // Lost the new connection as well, start over on the next one
+                    splice();
+                    return;
+                }
+
+                resyncLength += read;
+
+                int frameStart = aligner.findFrameStart(resync, resyncLength);
+                if (frameStart >= 0) {
+                    resyncPosition = frameStart;
+                    break;
+                }
+            }
+
+            log.debug("Resumed stream {} after {} padding bytes, skipped {} bytes to the next frame",
+                url, padding, resyncPosition);
         }
 
-        @Override
-        public long skip(long n) throws IOException {
-            return delegate.skip(n);
+        private void track(byte[] b, int off, int len) {
+            FrameAligner.Format format = frameFormat;
+
+            if (aligner == null && format != null) {
+                aligner = new FrameAligner(format);
+            }
+
+            if (aligner != null) {
+                aligner.track(b, off, len);
+            }
         }
 
-        @Override
-        public int available() throws IOException {
-            return delegate.available();
+        private boolean isInterruption(IOException e) {
+            // Okio reports thread interrupts (track stopped) as InterruptedIOException,
+            // while read timeouts use its SocketTimeoutException subclass
+            return e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException);
         }
+    }
 
-        @Override
-        public void close() throws IOException {
-            delegate.close();
+    // Base input stream wrapper
+    private static class IcyStreamInputStream extends InputStream {
+        protected final InputStream delegate;
+
+        IcyStreamInputStream(InputStream delegate) {
+            this.delegate = delegate;
         }
 
         @Override
-        public long getPosition() {
-            return 0;
+        public int read() throws IOException {
+            return delegate.read();
         }
 
         @Override
-        public boolean canSeekHard() {
-            return false;
+        public int read(byte[] b, int off, int len) throws IOException {
+            return delegate.read(b, off, len);
         }
 
         @Override
-        protected void seekHard(long position) throws IOException {
-            throw new UnsupportedOperationException("Stream is not seekable");
+        public void close() throws IOException {
+            delegate.close();
         }
 
         @Override
-        public java.util.List<com.sedmelluq.discord.lavaplayer.track.info.AudioTrackInfoProvider> getTrackInfoProviders() {
-            return java.util.Collections.emptyList();
+        public int available() throws IOException {
+            return delegate.available();
         }
     }
 }
-
-
@@ -0,0 +1,109 @@
+package com.zenkho.icy.stream;
+
+import com.zenkho.icy.metadata.IcyMetadataListener;
+import com.zenkho.icy.metrics.IcyMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that strips ICY metadata blocks from the audio bytes.
+ * <p>
+ * Metadata blocks are read into the reused scratch buffer of a {@link MetadataBlockProcessor}.
+ */
+class IcyMetadataInputStream extends InputStream {
+
+    private static final Logger log = LoggerFactory.getLogger(IcyMetadataInputStream.class);
+
+    private final InputStream delegate;
+    private final int metaInt;
+    private final MetadataBlockProcessor processor;
+    private int bytesUntilMetadata;
+
+    IcyMetadataInputStream(InputStream delegate, int metaInt, IcyMetadataListener listener, IcyMetrics metrics) {
+        this.delegate = delegate;
+        this.metaInt = metaInt;
+        this.bytesUntilMetadata = metaInt;
+        this.processor = new MetadataBlockProcessor(listener, metrics);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (bytesUntilMetadata == 0) {
+            if (!readMetadata()) {
+                return -1;
+            }
+            bytesUntilMetadata = metaInt;
+        }
+
+        bytesUntilMetadata--;
+        return delegate.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (bytesUntilMetadata == 0) {
+            if (!readMetadata()) {
+                return -1;
+            }
+            bytesUntilMetadata = metaInt;
+        }
+
+        int toRead = Math.min(len, bytesUntilMetadata);
+        int bytesRead = delegate.read(b, off, toRead);
+
+        if (bytesRead > 0) {
+            bytesUntilMetadata -= bytesRead;
+        }
+
+        return bytesRead;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return Math.min(delegate.available(), bytesUntilMetadata);
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    /**
+     * Read errors are thrown: a block cut off halfway leaves the stream out of step with its
+     * metadata interval, so only a new connection can continue it.
+     *
+     * @return false if the stream ended cleanly before the block
+     */
+    private boolean readMetadata() throws IOException {
+        int size = delegate.read();
+        if (size < 0) {
+            return false;
+        }
+
+        int metadataLength = size * 16;
+        if (metadataLength == 0) {
+            return true;
+        }
+
+        byte[] block = processor.getBlock();
+        int totalBytesRead = 0;
+        while (totalBytesRead < metadataLength) {
+            int result = delegate.read(block, totalBytesRead, metadataLength - totalBytesRead);
+            if (result < 0) {
+                throw new EOFException("Unexpected end of stream while reading metadata");
+            }
+            totalBytesRead += result;
+        }
+
+        try {
+            processor.process(metadataLength);
+        } catch (RuntimeException e) {
+            log.error("Unexpected error processing ICY metadata: {}", e.getMessage(), e);
+        }
+        return true;
+    }
+}
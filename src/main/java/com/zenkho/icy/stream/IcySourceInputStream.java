@@ -0,0 +1,146 @@
+package com.zenkho.icy.stream;
+
+import com.zenkho.icy.metadata.IcyMetadataListener;
+import com.zenkho.icy.metrics.IcyMetrics;
+import okio.BufferedSource;
+import okio.ByteString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Audio bytes read straight from the Okio source of the response, without the
+ * {@code byteStream()} adapter and wrapper layers in between.
+ * <p>
+ * Audio is copied once, from Okio's pooled segments into the caller's array, in runs up to
+ * the next metadata block. Metadata blocks are compared with the previous one while still
+ * in the segments and skipped there when unchanged, which is nearly every block, so they
+ * are only copied out when the title may have changed.
+ */
+class IcySourceInputStream extends InputStream {
+
+    private static final Logger log = LoggerFactory.getLogger(IcySourceInputStream.class);
+
+    private final BufferedSource source;
+    private final int metaInt;
+    private final MetadataBlockProcessor processor;
+    private ByteString previousBlock;
+    private int bytesUntilMetadata;
+
+    /**
+     * @param metaInt audio bytes between metadata blocks, 0 if the stream has none
+     */
+    IcySourceInputStream(BufferedSource source, int metaInt, IcyMetadataListener listener, IcyMetrics metrics) {
+        this.source = source;
+        this.metaInt = metaInt;
+        this.bytesUntilMetadata = metaInt > 0 ? metaInt : Integer.MAX_VALUE;
+        this.processor = metaInt > 0 ? new MetadataBlockProcessor(listener, metrics) : null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        skipMetadataIfDue();
+
+        if (source.exhausted()) {
+            return -1;
+        }
+
+        consumed(1);
+        return source.readByte() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        skipMetadataIfDue();
+
+        int read = source.read(b, off, Math.min(len, bytesUntilMetadata));
+        if (read > 0) {
+            consumed(read);
+        }
+        return read;
+    }
+
+    /**
+     * Skip audio up to the next metadata block at most, without copying it out of the
+     * segments. Blocks until all of it arrived.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+
+        skipMetadataIfDue();
+
+        long count = Math.min(n, bytesUntilMetadata);
+        source.skip(count);
+        consumed((int) count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(source.getBuffer().size(), bytesUntilMetadata);
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private void consumed(int count) {
+        if (metaInt > 0) {
+            bytesUntilMetadata -= count;
+        }
+    }
+
+    /**
+     * Read errors are thrown: the block was cut off, so the stream is out of step with its
+     * metadata interval for good and only a new connection can continue it.
+     */
+    private void skipMetadataIfDue() throws IOException {
+        if (bytesUntilMetadata > 0) {
+            return;
+        }
+
+        bytesUntilMetadata = metaInt;
+
+        // Stream ended cleanly right before a block, the read reports the end
+        if (source.exhausted()) {
+            return;
+        }
+
+        int metadataLength = (source.readByte() & 0xFF) * 16;
+        if (metadataLength == 0) {
+            return;
+        }
+
+        source.require(metadataLength);
+
+        // Most stations repeat the same block until the song changes
+        if (previousBlock != null && previousBlock.size() == metadataLength && source.rangeEquals(0, previousBlock)) {
+            source.skip(metadataLength);
+            return;
+        }
+
+        byte[] block = processor.getBlock();
+        int total = 0;
+        while (total < metadataLength) {
+            total += source.read(block, total, metadataLength - total);
+        }
+
+        previousBlock = ByteString.of(block, 0, metadataLength);
+
+        try {
+            processor.process(metadataLength);
+        } catch (RuntimeException e) {
+            log.error("Unexpected error processing ICY metadata: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,18 +1,31 @@
 package com.zenkho.icy.stream;
 
-import com.sedmelluq.discord.lavaplayer.container.mp3.Mp3AudioTrack;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerProbe;
+import com.sedmelluq.discord.lavaplayer.container.mpegts.MpegAdtsAudioTrack;
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.tools.io.SeekableInputStream;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
 import com.sedmelluq.discord.lavaplayer.track.BaseAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.InternalAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioProcessingContext;
+import com.sedmelluq.discord.lavaplayer.track.playback.ImmutableAudioFrame;
 import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
 import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.hls.HlsSegmentStream;
+import com.zenkho.icy.metadata.IcyMetadataParser.IcyMetadata;
+import com.zenkho.icy.metadata.TrackMetadataListener;
 import com.zenkho.icy.source.IcySourceManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class IcyStreamAudioTrack extends BaseAudioTrack {
 
@@ -29,27 +42,65 @@ public class IcyStreamAudioTrack extends BaseAudioTrack {
 
     @Override
     public void process(LocalAudioTrackExecutor executor) throws Exception {
-        IcyHttpStream httpStream = null;
+        Closeable upstream = null;
         try {
-            httpStream = new IcyHttpStream(
-                trackInfo.identifier,
-                sourceManager.getHttpClient(),
-                config
-            );
-            
-            log.info("Processing stream: {}", trackInfo.title);
+            SeekableInputStream inputStream = null;
+            StreamFormat format = sourceManager.getStreamFormat(trackInfo.identifier);
+
+            if (format != StreamFormat.HLS && config.isSharedUpstream() && format != null && format.isResyncable()) {
+                if (config.isSharedTranscode() && isPlainOpusOutput(executor.getProcessingContext())
+                    && playSharedFrames(executor, format)) {
+                    return;
+                }
+
+                // Read through a cursor on the station's shared upstream connection
+                StationHub.StationCursor cursor = sourceManager.getStationHub().attach(trackInfo.identifier, this::onMetadata);
+                upstream = cursor;
+                inputStream = new NonSeekableInputStream(cursor);
+            } else if (format != StreamFormat.HLS) {
+                // Formats that need their headers get their own connection, as do stations
+                // not sniffed yet, the next playback can share once the format is known
+                IcyHttpStream httpStream = sourceManager.openStream(trackInfo.identifier);
+                upstream = httpStream;
+
+                if (format == null && StreamFormat.fromContentType(httpStream.getContentType()) == StreamFormat.HLS) {
+                    httpStream.close();
+                    upstream = null;
+                    format = StreamFormat.HLS;
+                    sourceManager.rememberStreamFormat(trackInfo.identifier, format);
+                } else {
+                    httpStream.setMetadataListener(this::onMetadata);
+                    inputStream = httpStream.getInputStream();
+
+                    if (format == null) {
+                        byte[] head = new byte[StreamFormat.SNIFF_LENGTH];
+                        int length = readHead(inputStream, head);
+
+                        format = StreamFormat.detect(httpStream.getContentType(), head, length);
+                        sourceManager.rememberStreamFormat(trackInfo.identifier, format);
+                        httpStream.setStreamFormat(format);
+
+                        inputStream = withHead(head, length, inputStream);
+                    }
+                }
+            }
+
+            if (format == StreamFormat.HLS) {
+                HlsSegmentStream hlsStream = sourceManager.openHlsStream(trackInfo.identifier);
+                upstream = hlsStream;
+
+                log.info("Processing HLS stream: {}", trackInfo.title);
+                processHls(executor, hlsStream);
+                return;
+            }
             
-            // Get the input stream
-            SeekableInputStream inputStream = httpStream.getInputStream();
+            log.info("Processing stream: {} ({})", trackInfo.title, format);
             
             if (inputStream == null) {
                 throw new IllegalStateException("Failed to get input stream from ICY HTTP stream");
             }
-            
-            // Create an MP3 audio track and process it
-            // Most ICY streams are MP3 format
-            Mp3AudioTrack mp3Track = new Mp3AudioTrack(trackInfo, inputStream);
-            mp3Track.process(executor);
+
+            processContainer(executor, format, inputStream);
             
         } catch (IOException e) {
             log.error("IO error processing ICY stream: {} - {}", trackInfo.identifier, e.getMessage());
@@ -58,9 +109,9 @@ public class IcyStreamAudioTrack extends BaseAudioTrack {
             log.error("Unexpected error processing ICY stream: {} - {}", trackInfo.identifier, e.getMessage(), e);
             throw e;
         } finally {
-            if (httpStream != null) {
+            if (upstream != null) {
                 try {
-                    httpStream.close();
+                    upstream.close();
                 } catch (IOException e) {
                     log.warn("Error closing ICY HTTP stream: {}", e.getMessage());
                 }
@@ -68,6 +119,112 @@ public class IcyStreamAudioTrack extends BaseAudioTrack {
         }
     }
 
+    private void processHls(LocalAudioTrackExecutor executor, HlsSegmentStream hlsStream) throws Exception {
+        byte[] head = new byte[StreamFormat.SNIFF_LENGTH];
+        int length = readHead(hlsStream, head);
+        SeekableInputStream inputStream = withHead(head, length, hlsStream);
+
+        if (StreamFormat.isTransportStream(head, length)) {
+            // Segments are MPEG-TS carrying ADTS audio, as most radio HLS streams are
+            new MpegAdtsAudioTrack(trackInfo, inputStream).process(executor);
+        } else {
+            // Packed audio segments (.aac/.mp3), concatenated they are a plain audio stream
+            StreamFormat format = StreamFormat.detect(null, head, length);
+            processContainer(executor, format.isResyncable() ? format : StreamFormat.ADTS, inputStream);
+        }
+    }
+
+    private void processContainer(LocalAudioTrackExecutor executor, StreamFormat format,
+                                  SeekableInputStream inputStream) throws Exception {
+        MediaContainerProbe container = sourceManager.getMediaContainerRegistry().find(format.getContainerName());
+        if (container == null) {
+            throw new IllegalStateException("No lavaplayer container available for format: " + format);
+        }
+
+        InternalAudioTrack track = (InternalAudioTrack) container.createTrack(null, trackInfo, inputStream);
+        track.process(executor);
+    }
+
+    /**
+     * Copy the frames of the station's shared transcoder into the player's buffer until the
+     * station ends or the player sets filters or volume.
+     *
+     * @return false if the player left the shared frames and needs its own transcoding
+     */
+    private boolean playSharedFrames(LocalAudioTrackExecutor executor, StreamFormat format) throws IOException {
+        AudioProcessingContext context = executor.getProcessingContext();
+        AtomicBoolean leftShared = new AtomicBoolean();
+
+        try (SharedTranscoder.FrameCursor frames = sourceManager.getSharedTranscoder().attach(trackInfo, format, context, this::onMetadata)) {
+            log.info("Processing stream: {} ({}, shared transcoding)", trackInfo.title, format);
+
+            executor.executeProcessingLoop(() -> {
+                long firstTimecode = -1;
+                AudioFrame frame;
+
+                while ((frame = frames.next()) != null) {
+                    if (!isPlainOpusOutput(context)) {
+                        leftShared.set(true);
+                        return;
+                    }
+
+                    // Positions start at zero for every player, not at the age of the stage
+                    if (firstTimecode < 0) {
+                        firstTimecode = frame.getTimecode();
+                    }
+                    context.frameBuffer.consume(new ImmutableAudioFrame(frame.getTimecode() - firstTimecode,
+                        frame.getData(), frame.getVolume(), frame.getFormat()));
+                }
+
+                // Station ended, the track ends once the player has drained the buffer
+                context.frameBuffer.setTerminateOnEmpty();
+                context.frameBuffer.waitForTermination();
+            }, null, false);
+        }
+
+        if (leftShared.get()) {
+            log.debug("Filters or volume set on {}, switching to own transcoding", trackInfo.identifier);
+        }
+        return !leftShared.get();
+    }
+
+    /**
+     * @return true if the player outputs Opus at full volume without filters, so encoded
+     *         frames can be handed to it unchanged
+     */
+    static boolean isPlainOpusOutput(AudioProcessingContext context) {
+        return "OPUS".equals(context.outputFormat.codecName())
+            && context.playerOptions.volumeLevel.get() == 100
+            && context.playerOptions.filterFactory.get() == null;
+    }
+
+    private static SeekableInputStream withHead(byte[] head, int length, InputStream rest) {
+        return new NonSeekableInputStream(new SequenceInputStream(new ByteArrayInputStream(head, 0, length), rest));
+    }
+
+    private static int readHead(InputStream inputStream, byte[] head) throws IOException {
+        int length = 0;
+
+        while (length < head.length) {
+            int read = inputStream.read(head, length, head.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+
+        return length;
+    }
+
+    private void onMetadata(IcyMetadata metadata) {
+        sourceManager.getStationHistory().record(trackInfo.identifier, metadata);
+
+        TrackMetadataListener listener = sourceManager.getTrackMetadataListener();
+        if (listener != null) {
+            listener.onTrackMetadata(this, metadata);
+        }
+    }
+
     @Override
     protected AudioTrack makeShallowClone() {
         return new IcyStreamAudioTrack(trackInfo, sourceManager, config);
@@ -0,0 +1,85 @@
+package com.zenkho.icy.stream;
+
+import com.zenkho.icy.metadata.IcyMetadataListener;
+import com.zenkho.icy.metadata.IcyMetadataParser;
+import com.zenkho.icy.metadata.IcyMetadataParser.IcyMetadata;
+import com.zenkho.icy.metrics.IcyMetrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Turns raw ICY metadata blocks into title changes for the demuxing streams.
+ * <p>
+ * Blocks that are byte-identical to the previous one are skipped, and the title is
+ * located with a byte-level scanner, so Strings are only created when the title
+ * actually changes.
+ */
+class MetadataBlockProcessor {
+
+    private final IcyMetadataListener listener;
+    private final IcyMetrics metrics;
+    private final byte[] block = new byte[IcyMetadataParser.MAX_METADATA_LENGTH];
+    private final byte[] previousBlock = new byte[IcyMetadataParser.MAX_METADATA_LENGTH];
+    private final byte[] titleBytes = new byte[IcyMetadataParser.MAX_METADATA_LENGTH];
+    private int previousLength = -1;
+    private int titleLength = -1;
+
+    MetadataBlockProcessor(IcyMetadataListener listener, IcyMetrics metrics) {
+        this.listener = listener;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return scratch buffer the raw block is read into before {@link #process(int)}
+     */
+    byte[] getBlock() {
+        return block;
+    }
+
+    /**
+     * @param metadataLength bytes of the block, including the zero padding
+     */
+    void process(int metadataLength) {
+        long start = System.nanoTime();
+        processBlock(IcyMetadataParser.trimmedLength(block, metadataLength));
+        metrics.recordMetadataParse(System.nanoTime() - start);
+    }
+
+    private void processBlock(int length) {
+        // Most stations repeat the same block until the song changes
+        if (length == previousLength && Arrays.equals(block, 0, length, previousBlock, 0, length)) {
+            return;
+        }
+
+        System.arraycopy(block, 0, previousBlock, 0, length);
+        previousLength = length;
+
+        long title = IcyMetadataParser.findStreamTitle(block, length);
+        if (title < 0) {
+            return;
+        }
+
+        int start = IcyMetadataParser.valueStart(title);
+        int end = IcyMetadataParser.valueEnd(title);
+        int newTitleLength = end - start;
+
+        if (newTitleLength == titleLength && Arrays.equals(block, start, end, titleBytes, 0, newTitleLength)) {
+            return;
+        }
+
+        System.arraycopy(block, start, titleBytes, 0, newTitleLength);
+        titleLength = newTitleLength;
+
+        String streamTitle = new String(block, start, newTitleLength, StandardCharsets.UTF_8);
+
+        String streamUrl = null;
+        long url = IcyMetadataParser.findStreamUrl(block, length);
+        if (url >= 0) {
+            int urlStart = IcyMetadataParser.valueStart(url);
+            streamUrl = new String(block, urlStart, IcyMetadataParser.valueEnd(url) - urlStart, StandardCharsets.UTF_8);
+        }
+
+        listener.onMetadata(new IcyMetadata(streamTitle, streamUrl));
+    }
+}
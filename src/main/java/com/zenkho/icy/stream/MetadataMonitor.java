@@ -0,0 +1,292 @@
+package com.zenkho.icy.stream;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.metadata.IcyMetadataParser.IcyMetadata;
+import com.zenkho.icy.metadata.StationHistory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the titles of stations nobody is playing, for station browsers.
+ * <p>
+ * Each monitored station holds one metadata-only {@link IcyHttpStream} whose audio is
+ * skipped without being copied or decoded, so a monitor costs a socket and a reader
+ * thread rather than a track. Titles are recorded into the {@link StationHistory} like
+ * those of played stations. The number of monitors is capped, and a monitor nobody asked
+ * about for {@code monitorIdleMs} is closed.
+ */
+public class MetadataMonitor implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MetadataMonitor.class);
+
+    private static final long SWEEP_INTERVAL_MS = 10000;
+
+    /**
+     * Opens the metadata-only connection for a station.
+     */
+    public interface MonitorConnector {
+        IcyHttpStream connect(String url) throws IOException;
+    }
+
+    public enum State {
+        CONNECTING,
+        ACTIVE,
+        /** The station sends no ICY metadata, there is nothing to monitor. */
+        NO_METADATA,
+        FAILED
+    }
+
+    private final Map<String, Monitor> monitors = new ConcurrentHashMap<>();
+    private final Config config;
+    private final StreamExecutors executors;
+    private final MonitorConnector connector;
+    private final StationHistory history;
+    private final ScheduledFuture<?> sweeper;
+
+    public MetadataMonitor(Config config, StreamExecutors executors, MonitorConnector connector, StationHistory history) {
+        this.config = config;
+        this.executors = executors;
+        this.connector = connector;
+        this.history = history;
+        this.sweeper = executors.getScheduler().scheduleWithFixedDelay(this::evictIdle,
+            SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start monitoring a station, or keep an existing monitor alive. A failed monitor is
+     * started again.
+     *
+     * @return state of the monitor, or null if the limit of monitored stations is reached
+     */
+    public Status watch(String url) {
+        Monitor monitor = monitors.get(url);
+        if (monitor != null && monitor.state != State.FAILED) {
+            monitor.touch();
+            return monitor.status();
+        }
+
+        synchronized (monitors) {
+            monitor = monitors.get(url);
+            if (monitor != null && monitor.state == State.FAILED) {
+                monitors.remove(url, monitor);
+                monitor = null;
+            }
+
+            if (monitor == null) {
+                if (monitors.size() >= config.getMonitorMaxStations()) {
+                    return null;
+                }
+
+                monitor = new Monitor(url);
+                monitors.put(url, monitor);
+                executors.startReader(monitor::run, "icy-monitor-");
+            }
+        }
+
+        monitor.touch();
+        return monitor.status();
+    }
+
+    /**
+     * @return state of the monitor for the station without starting one, null if it is not monitored
+     */
+    public Status get(String url) {
+        Monitor monitor = monitors.get(url);
+        if (monitor == null) {
+            return null;
+        }
+
+        monitor.touch();
+        return monitor.status();
+    }
+
+    /**
+     * Stop monitoring a station.
+     *
+     * @return true if it was monitored
+     */
+    public boolean unwatch(String url) {
+        Monitor monitor = monitors.remove(url);
+        if (monitor == null) {
+            return false;
+        }
+
+        monitor.stop();
+        return true;
+    }
+
+    public int getMonitorCount() {
+        return monitors.size();
+    }
+
+    private void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - config.getMonitorIdleMs();
+
+        for (Monitor monitor : monitors.values()) {
+            if (monitor.lastAccess < idleBefore && monitors.remove(monitor.url, monitor)) {
+                log.debug("Stopping idle metadata monitor for station: {}", monitor.url);
+                monitor.stop();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        sweeper.cancel(false);
+
+        List<Monitor> snapshot = new ArrayList<>(monitors.values());
+        monitors.clear();
+
+        for (Monitor monitor : snapshot) {
+            monitor.stop();
+        }
+    }
+
+    private class Monitor {
+        private final String url;
+        private volatile long lastAccess;
+        private volatile State state = State.CONNECTING;
+        private volatile String error;
+        private volatile IcyMetadata metadata;
+        private volatile long updatedAt;
+        private volatile int bitrateKbps;
+        private volatile IcyHttpStream stream;
+        private volatile boolean stopped;
+
+        Monitor(String url) {
+            this.url = url;
+            touch();
+        }
+
+        void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+
+        Status status() {
+            return new Status(state, metadata, updatedAt, bitrateKbps, error);
+        }
+
+        private void run() {
+            IcyHttpStream opened = null;
+
+            try {
+                opened = connector.connect(url);
+                stream = opened;
+                bitrateKbps = opened.getBitrateKbps();
+
+                if (stopped) {
+                    return;
+                }
+
+                if (!config.isEnableMetadata() || opened.getMetadataInterval() == 0) {
+                    log.info("Station {} sends no ICY metadata, not monitoring it", url);
+                    state = State.NO_METADATA;
+                    return;
+                }
+
+                opened.setMetadataListener(this::onMetadata);
+                state = State.ACTIVE;
+                log.debug("Monitoring metadata of station: {}", url);
+
+                opened.skipAudio();
+            } catch (IOException e) {
+                if (!stopped) {
+                    log.warn("Metadata monitor for station {} failed: {}", url, e.getMessage());
+                    error = e.getMessage();
+                    state = State.FAILED;
+                }
+            } catch (Exception e) {
+                log.error("Unexpected error in metadata monitor for station {}: {}", url, e.getMessage(), e);
+                error = e.getMessage();
+                state = State.FAILED;
+            } finally {
+                if (opened != null) {
+                    closeQuietly(opened);
+                }
+            }
+        }
+
+        private void onMetadata(IcyMetadata metadata) {
+            this.metadata = metadata;
+            this.updatedAt = System.currentTimeMillis();
+            history.record(url, metadata);
+        }
+
+        void stop() {
+            stopped = true;
+
+            IcyHttpStream current = stream;
+            if (current != null) {
+                closeQuietly(current);
+            }
+        }
+
+        private void closeQuietly(IcyHttpStream current) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.debug("Error closing metadata monitor for station {}: {}", url, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Snapshot of a monitored station.
+     */
+    public static class Status {
+        private final State state;
+        private final IcyMetadata metadata;
+        private final long updatedAt;
+        private final int bitrateKbps;
+        private final String error;
+
+        Status(State state, IcyMetadata metadata, long updatedAt, int bitrateKbps, String error) {
+            this.state = state;
+            this.metadata = metadata;
+            this.updatedAt = updatedAt;
+            this.bitrateKbps = bitrateKbps;
+            this.error = error;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * @return latest metadata, null until the station sent a title
+         */
+        public IcyMetadata getMetadata() {
+            return metadata;
+        }
+
+        /**
+         * @return when the title last changed, in epoch milliseconds, 0 if it never did
+         */
+        public long getUpdatedAt() {
+            return updatedAt;
+        }
+
+        /**
+         * @return bitrate announced by the station in kbps, 0 if unknown or not connected yet
+         */
+        public int getBitrateKbps() {
+            return bitrateKbps;
+        }
+
+        /**
+         * @return why the monitor failed, null unless the state is {@link State#FAILED}
+         */
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.zenkho.icy.stream;
+
+import com.sedmelluq.discord.lavaplayer.tools.io.SeekableInputStream;
+import com.sedmelluq.discord.lavaplayer.track.info.AudioTrackInfoProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+// SeekableInputStream adapter (non-seekable)
+class NonSeekableInputStream extends SeekableInputStream {
+    private final InputStream delegate;
+
+    NonSeekableInputStream(InputStream delegate) {
+        super(0, Long.MAX_VALUE);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return delegate.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return delegate.read(b, off, len);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        return delegate.skip(n);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return delegate.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    @Override
+    public long getPosition() {
+        return 0;
+    }
+
+    @Override
+    public boolean canSeekHard() {
+        return false;
+    }
+
+    @Override
+    protected void seekHard(long position) throws IOException {
+        throw new UnsupportedOperationException("Stream is not seekable");
+    }
+
+    @Override
+    public List<AudioTrackInfoProvider> getTrackInfoProviders() {
+        return Collections.emptyList();
+    }
+}
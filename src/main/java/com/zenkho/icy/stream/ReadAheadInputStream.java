@@ -0,0 +1,221 @@
+package com.zenkho.icy.stream;
+
+import com.zenkho.icy.metrics.IcyMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Jitter buffer between the network and the decoder.
+ * <p>
+ * A dedicated reader fills a bounded ring buffer from the source and pauses once the
+ * fill level reaches the high watermark. The decoder reads from the ring; when it runs
+ * dry it counts an underrun and waits until the low watermark is reached again, so a
+ * stall turns into one gap instead of a series of stutters.
+ */
+class ReadAheadInputStream extends InputStream implements IcyMetrics.BufferLevel {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadAheadInputStream.class);
+
+    private static final int MAX_READ_SIZE = 8192;
+
+    private final InputStream source;
+    private final IcyMetrics metrics;
+    private final byte[] ring;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dataAvailable = lock.newCondition();
+    private final Condition spaceAvailable = lock.newCondition();
+    private final byte[] single = new byte[1];
+
+    private int readIndex;
+    private int writeIndex;
+    private int fill;
+    private boolean buffering = true;
+    private boolean ended;
+    private boolean closed;
+    private IOException failure;
+
+    ReadAheadInputStream(InputStream source, int capacity, int lowWatermark, int highWatermark, Executor executor,
+                         IcyMetrics metrics) {
+        this.source = source;
+        this.metrics = metrics;
+        this.ring = new byte[capacity];
+        this.highWatermark = Math.max(1, Math.min(capacity, highWatermark));
+        this.lowWatermark = Math.max(1, Math.min(this.highWatermark, lowWatermark));
+        executor.execute(this::fillLoop);
+        metrics.bufferOpened(this);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int result;
+        do {
+            result = read(single, 0, 1);
+        } while (result == 0);
+
+        return result < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        lock.lock();
+        try {
+            if (fill == 0 && !ended && !buffering) {
+                metrics.recordUnderrun();
+                buffering = true;
+                log.debug("Read-ahead buffer ran dry, rebuffering to {} bytes", lowWatermark);
+            }
+
+            // Wait for the low watermark both at start and after an underrun
+            while (buffering && fill < lowWatermark && !ended) {
+                dataAvailable.await();
+            }
+            buffering = false;
+
+            if (fill == 0) {
+                if (closed) {
+                    throw new IOException("Stream is closed");
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                return -1;
+            }
+
+            int toRead = Math.min(len, fill);
+            int first = Math.min(toRead, ring.length - readIndex);
+            System.arraycopy(ring, readIndex, b, off, first);
+            System.arraycopy(ring, 0, b, off + first, toRead - first);
+
+            readIndex = (readIndex + toRead) % ring.length;
+            fill -= toRead;
+            spaceAvailable.signal();
+            return toRead;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for buffered audio");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int available() {
+        lock.lock();
+        try {
+            return buffering ? 0 : fill;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            ended = true;
+            metrics.bufferClosed(this);
+            dataAvailable.signalAll();
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        source.close();
+    }
+
+    @Override
+    public int getFillLevel() {
+        lock.lock();
+        try {
+            return fill;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    private void fillLoop() {
+        try {
+            while (true) {
+                int index;
+                int space;
+
+                lock.lock();
+                try {
+                    while (fill >= highWatermark && !closed) {
+                        spaceAvailable.await();
+                    }
+
+                    if (closed) {
+                        return;
+                    }
+
+                    index = writeIndex;
+                    space = Math.min(Math.min(highWatermark - fill, ring.length - index), MAX_READ_SIZE);
+                } finally {
+                    lock.unlock();
+                }
+
+                // Only this thread writes, and the region after writeIndex is free, so read outside the lock
+                int read = source.read(ring, index, space);
+
+                lock.lock();
+                try {
+                    if (read < 0) {
+                        ended = true;
+                        dataAvailable.signalAll();
+                        return;
+                    }
+
+                    writeIndex = (writeIndex + read) % ring.length;
+                    fill += read;
+                    dataAvailable.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            end(new InterruptedIOException("Read-ahead interrupted"));
+        } catch (IOException e) {
+            end(e);
+        } catch (Exception e) {
+            end(new IOException("Unexpected error in read-ahead: " + e.getMessage(), e));
+        }
+    }
+
+    private void end(IOException cause) {
+        lock.lock();
+        try {
+            if (!closed) {
+                failure = cause;
+            }
+            ended = true;
+            dataAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
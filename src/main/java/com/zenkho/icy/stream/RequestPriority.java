@@ -0,0 +1,23 @@
+package com.zenkho.icy.stream;
+
+/**
+ * Why an upstream request is made, attached to it as an OkHttp tag. When a host's connect
+ * budget is used up, waiting requests are let through in this order, so probes never hold
+ * up a reconnect of a station that is playing. Untagged requests count as {@link #LOAD}.
+ */
+public enum RequestPriority {
+    /**
+     * Connects and reconnects of audio that players are waiting on.
+     */
+    PLAYBACK,
+
+    /**
+     * Loading a track and fetching its playlist.
+     */
+    LOAD,
+
+    /**
+     * Stream detection and metadata-only monitors, which nobody is listening to.
+     */
+    PROBE
+}
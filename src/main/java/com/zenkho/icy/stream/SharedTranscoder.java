@@ -0,0 +1,428 @@
+package com.zenkho.icy.stream;
+
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerProbe;
+import com.sedmelluq.discord.lavaplayer.container.MediaContainerRegistry;
+import com.sedmelluq.discord.lavaplayer.format.AudioDataFormat;
+import com.sedmelluq.discord.lavaplayer.player.AudioConfiguration;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerOptions;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import com.sedmelluq.discord.lavaplayer.track.InternalAudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.TrackStateListener;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioProcessingContext;
+import com.sedmelluq.discord.lavaplayer.track.playback.ImmutableAudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.metadata.IcyMetadataListener;
+import com.zenkho.icy.metadata.IcyMetadataParser.IcyMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decodes and encodes a station once for all players that play it unmodified.
+ * <p>
+ * Each stage reads its station through a {@link StationHub} cursor, plays it on a private
+ * lavaplayer executor at full volume without filters, and keeps the encoded frames in a
+ * ring. Players with the same output format read the ring through their own
+ * {@link FrameCursor} instead of transcoding, so a station costs one encoder no matter
+ * how many players listen. Stages are reference counted and linger like hub stations.
+ */
+public class SharedTranscoder implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedTranscoder.class);
+
+    // In 20ms frames: 10 seconds are kept, the last second is replayed to a joining player
+    private static final int RING_FRAMES = 500;
+    private static final int BURST_FRAMES = 50;
+    private static final int DECODER_BUFFER_MS = 1000;
+    private static final long PROVIDE_TIMEOUT_MS = 500;
+
+    private final Map<String, Stage> stages = new ConcurrentHashMap<>();
+    private final Config config;
+    private final StreamExecutors executors;
+    private final StationHub hub;
+    private final MediaContainerRegistry containers;
+
+    public SharedTranscoder(Config config, StreamExecutors executors, StationHub hub, MediaContainerRegistry containers) {
+        this.config = config;
+        this.executors = executors;
+        this.hub = hub;
+        this.containers = containers;
+    }
+
+    /**
+     * Attach a player to the stage of a station for its output format, starting the stage
+     * if needed. The returned cursor must be closed to release the stage. The listener, if
+     * not null, receives the current title right away and every change after that.
+     */
+    public FrameCursor attach(AudioTrackInfo trackInfo, StreamFormat format, AudioProcessingContext context,
+                              IcyMetadataListener listener) throws IOException {
+        String key = stageKey(trackInfo.identifier, context.outputFormat);
+
+        while (true) {
+            Stage stage = stages.computeIfAbsent(key, ignored -> new Stage(key, trackInfo.identifier, context.outputFormat));
+
+            if (stage.retain()) {
+                try {
+                    stage.ensureStarted(trackInfo, format, context.configuration);
+                    return stage.newCursor(listener);
+                } catch (IOException e) {
+                    stage.release(null);
+                    throw e;
+                }
+            }
+
+            // Stage is being torn down, drop it and create a fresh one
+            stages.remove(key, stage);
+        }
+    }
+
+    public int getStageCount() {
+        return stages.size();
+    }
+
+    private static String stageKey(String url, AudioDataFormat format) {
+        return format.codecName() + "/" + format.sampleRate + "/" + format.channelCount + "/" + format.chunkSampleCount + " " + url;
+    }
+
+    @Override
+    public void close() {
+        List<Stage> snapshot = new ArrayList<>(stages.values());
+        stages.clear();
+
+        for (Stage stage : snapshot) {
+            stage.shutdown(null);
+        }
+    }
+
+    private class Stage {
+        private final String key;
+        private final String url;
+        private final AudioDataFormat format;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition frameAvailable = lock.newCondition();
+        private final AudioFrame[] ring = new AudioFrame[RING_FRAMES];
+        private final List<IcyMetadataListener> listeners = new CopyOnWriteArrayList<>();
+        private volatile IcyMetadata currentMetadata;
+
+        private long writePosition;
+        private int refCount;
+        private boolean closed;
+        private boolean ended;
+        private IOException failure;
+        private StationHub.StationCursor upstream;
+        private LocalAudioTrackExecutor decoder;
+        private ScheduledFuture<?> lingerTask;
+
+        Stage(String key, String url, AudioDataFormat format) {
+            this.key = key;
+            this.url = url;
+            this.format = format;
+        }
+
+        boolean retain() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+
+                refCount++;
+
+                if (lingerTask != null) {
+                    lingerTask.cancel(false);
+                    lingerTask = null;
+                }
+
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release(FrameCursor cursor) {
+            if (cursor != null && cursor.listener != null) {
+                listeners.remove(cursor.listener);
+            }
+
+            lock.lock();
+            try {
+                if (--refCount > 0 || closed) {
+                    return;
+                }
+
+                lingerTask = executors.getScheduler().schedule(this::closeIfIdle, config.getHubLingerMs(), TimeUnit.MILLISECONDS);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Serialises the first start so concurrent attachers share the same decoder
+        synchronized void ensureStarted(AudioTrackInfo trackInfo, StreamFormat streamFormat,
+                                        AudioConfiguration configuration) throws IOException {
+            if (decoder != null) {
+                return;
+            }
+
+            if (isClosed()) {
+                throw new IOException("Shared transcoder for station is closed: " + url);
+            }
+
+            MediaContainerProbe container = containers.find(streamFormat.getContainerName());
+            if (container == null) {
+                IOException e = new IOException("No lavaplayer container available for format: " + streamFormat);
+                shutdown(e);
+                throw e;
+            }
+
+            try {
+                upstream = hub.attach(url, this::onMetadata);
+            } catch (IOException e) {
+                shutdown(e);
+                throw e;
+            }
+
+            AudioConfiguration stageConfiguration = configuration.copy();
+            stageConfiguration.setOutputFormat(format);
+
+            InternalAudioTrack track = (InternalAudioTrack) container.createTrack(null, trackInfo, new NonSeekableInputStream(upstream));
+            decoder = new LocalAudioTrackExecutor(track, stageConfiguration, new AudioPlayerOptions(), false, DECODER_BUFFER_MS);
+
+            executors.startReader(this::decode, "icy-transcode-");
+            executors.startReader(this::pump, "icy-transcode-pump-");
+
+            log.info("Started shared transcoding for station: {} ({})", url, streamFormat);
+        }
+
+        FrameCursor newCursor(IcyMetadataListener listener) {
+            FrameCursor cursor;
+
+            lock.lock();
+            try {
+                cursor = new FrameCursor(this, writePosition - Math.min(BURST_FRAMES, writePosition), listener);
+            } finally {
+                lock.unlock();
+            }
+
+            if (listener != null) {
+                listeners.add(listener);
+
+                IcyMetadata metadata = currentMetadata;
+                if (metadata != null) {
+                    listener.onMetadata(metadata);
+                }
+            }
+
+            return cursor;
+        }
+
+        private void onMetadata(IcyMetadata metadata) {
+            currentMetadata = metadata;
+
+            for (IcyMetadataListener listener : listeners) {
+                try {
+                    listener.onMetadata(metadata);
+                } catch (Exception e) {
+                    log.warn("Metadata listener failed for station {}: {}", url, e.getMessage());
+                }
+            }
+        }
+
+        private void decode() {
+            decoder.execute(new TrackStateListener() {
+                @Override
+                public void onTrackException(AudioTrack track, FriendlyException exception) {
+                    finish(new IOException("Shared transcoding failed: " + exception.getMessage(), exception));
+                }
+
+                @Override
+                public void onTrackStuck(AudioTrack track, long thresholdMs) {
+                    // Upstream stalls are handled by the connection itself
+                }
+            });
+        }
+
+        private void pump() {
+            try {
+                while (!isClosed()) {
+                    AudioFrame frame;
+                    try {
+                        frame = decoder.provide(PROVIDE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        continue;
+                    }
+
+                    if (frame == null) {
+                        continue;
+                    } else if (frame.isTerminator()) {
+                        finish(null);
+                        return;
+                    }
+
+                    // The decoder may reuse its frames, keep an immutable copy
+                    write(new ImmutableAudioFrame(frame.getTimecode(), frame.getData(), frame.getVolume(), frame.getFormat()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                shutdown(null);
+            } catch (Exception e) {
+                finish(new IOException("Unexpected error reading shared transcoder: " + e.getMessage(), e));
+            }
+        }
+
+        private void write(AudioFrame frame) {
+            lock.lock();
+            try {
+                ring[(int) (writePosition % RING_FRAMES)] = frame;
+                writePosition++;
+                frameAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void finish(IOException cause) {
+            if (!isClosed() && cause != null) {
+                log.warn("Shared transcoding for station {} failed: {}", url, cause.getMessage());
+            }
+
+            shutdown(cause);
+        }
+
+        private boolean isClosed() {
+            lock.lock();
+            try {
+                return closed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void closeIfIdle() {
+            lock.lock();
+            try {
+                if (refCount > 0 || closed) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            log.info("Stopping idle shared transcoding for station: {}", url);
+            shutdown(null);
+        }
+
+        void shutdown(IOException cause) {
+            LocalAudioTrackExecutor toStop;
+            StationHub.StationCursor toClose;
+
+            lock.lock();
+            try {
+                if (!ended) {
+                    ended = true;
+                    failure = cause;
+                }
+
+                closed = true;
+                toStop = decoder;
+                toClose = upstream;
+                frameAvailable.signalAll();
+
+                if (lingerTask != null) {
+                    lingerTask.cancel(false);
+                    lingerTask = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            stages.remove(key, this);
+
+            if (toStop != null) {
+                toStop.stop();
+            }
+            if (toClose != null) {
+                toClose.close();
+            }
+        }
+
+        AudioFrame next(FrameCursor cursor) throws IOException, InterruptedException {
+            lock.lock();
+            try {
+                while (cursor.position >= writePosition && !ended) {
+                    frameAvailable.await();
+                }
+
+                if (writePosition - cursor.position > RING_FRAMES) {
+                    // Player fell behind the encoder, jump back to the live edge
+                    log.debug("Player lagged {} frames behind station {}, skipping to live edge",
+                        writePosition - cursor.position, url);
+                    cursor.position = writePosition - BURST_FRAMES;
+                }
+
+                if (cursor.position >= writePosition) {
+                    if (failure != null) {
+                        throw new IOException("Shared transcoding failed: " + failure.getMessage(), failure);
+                    }
+                    return null;
+                }
+
+                return ring[(int) (cursor.position++ % RING_FRAMES)];
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Per-player view of a shared stage. Frames keep the timecodes of the stage.
+     */
+    public static class FrameCursor implements Closeable {
+        private final Stage stage;
+        private final IcyMetadataListener listener;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private long position;
+
+        private FrameCursor(Stage stage, long position, IcyMetadataListener listener) {
+            this.stage = stage;
+            this.position = position;
+            this.listener = listener;
+        }
+
+        /**
+         * Wait for the next encoded frame.
+         *
+         * @return the frame, or null once the station ended
+         */
+        public AudioFrame next() throws IOException, InterruptedException {
+            if (closed.get()) {
+                throw new IOException("Frame cursor is closed");
+            }
+
+            return stage.next(this);
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                stage.release(this);
+            }
+        }
+    }
+}
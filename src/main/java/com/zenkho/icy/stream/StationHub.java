@@ -0,0 +1,422 @@
+package com.zenkho.icy.stream;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.metadata.IcyMetadataListener;
+import com.zenkho.icy.metadata.IcyMetadataParser.IcyMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares one upstream connection per station between all players listening to it.
+ * <p>
+ * Each station owns a single {@link IcyHttpStream} and a pump thread that copies the
+ * demuxed audio bytes into a ring buffer. Every player reads the ring through its own
+ * {@link StationCursor}. Stations are reference counted and torn down after a linger
+ * timeout once the last cursor is closed, so quick track restarts reuse the socket.
+ */
+public class StationHub implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(StationHub.class);
+
+    private static final int PUMP_CHUNK_SIZE = 8192;
+
+    /**
+     * Opens the upstream connection for a station.
+     */
+    public interface UpstreamConnector {
+        IcyHttpStream connect(String url) throws IOException;
+    }
+
+    private final Map<String, SharedStation> stations = new ConcurrentHashMap<>();
+    private final Config config;
+    private final StreamExecutors executors;
+    private final UpstreamConnector connector;
+
+    public StationHub(Config config, StreamExecutors executors, UpstreamConnector connector) {
+        this.config = config;
+        this.executors = executors;
+        this.connector = connector;
+    }
+
+    /**
+     * Attach a new reader to the station at the given URL, connecting upstream if needed.
+     * The returned cursor must be closed to release the station. The listener, if not null,
+     * receives the current title right away and every change after that.
+     */
+    public StationCursor attach(String url, IcyMetadataListener listener) throws IOException {
+        while (true) {
+            SharedStation station = stations.computeIfAbsent(url, SharedStation::new);
+
+            if (station.retain()) {
+                try {
+                    station.ensureStarted();
+                    return station.newCursor(listener);
+                } catch (IOException e) {
+                    station.release(null);
+                    throw e;
+                }
+            }
+
+            // Station is being torn down, drop it and create a fresh one
+            stations.remove(url, station);
+        }
+    }
+
+    /**
+     * @return true if a station for the URL is currently connected upstream
+     */
+    public boolean isStationActive(String url) {
+        SharedStation station = stations.get(url);
+        return station != null && station.isRunning();
+    }
+
+    public int getStationCount() {
+        return stations.size();
+    }
+
+    @Override
+    public void close() {
+        List<SharedStation> snapshot = new ArrayList<>(stations.values());
+        stations.clear();
+
+        for (SharedStation station : snapshot) {
+            station.shutdown(null);
+        }
+    }
+
+    private class SharedStation {
+        private final String url;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition dataAvailable = lock.newCondition();
+        private final byte[] ring;
+        private final List<IcyMetadataListener> listeners = new CopyOnWriteArrayList<>();
+        private volatile IcyMetadata currentMetadata;
+
+        private long writePosition;
+        private int refCount;
+        private boolean closed;
+        private boolean ended;
+        private IOException failure;
+        private IcyHttpStream upstream;
+        private ScheduledFuture<?> lingerTask;
+
+        SharedStation(String url) {
+            this.url = url;
+            this.ring = new byte[Math.max(PUMP_CHUNK_SIZE * 2, config.getHubBufferSize())];
+        }
+
+        boolean retain() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+
+                refCount++;
+
+                if (lingerTask != null) {
+                    lingerTask.cancel(false);
+                    lingerTask = null;
+                }
+
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release(StationCursor cursor) {
+            if (cursor != null && cursor.listener != null) {
+                listeners.remove(cursor.listener);
+            }
+
+            lock.lock();
+            try {
+                if (--refCount > 0 || closed) {
+                    return;
+                }
+
+                lingerTask = executors.getScheduler().schedule(this::closeIfIdle, config.getHubLingerMs(), TimeUnit.MILLISECONDS);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Serialises the first connect so concurrent attachers wait for the same upstream
+        synchronized void ensureStarted() throws IOException {
+            if (upstream != null) {
+                return;
+            }
+
+            if (isClosed()) {
+                throw new IOException("Shared upstream for station is closed: " + url);
+            }
+
+            try {
+                upstream = connector.connect(url);
+            } catch (IOException e) {
+                shutdown(e);
+                throw e;
+            }
+
+            upstream.setMetadataListener(this::onMetadata);
+
+            executors.startReader(this::pump, "icy-hub-");
+
+            log.info("Opened shared upstream for station: {}", url);
+        }
+
+        StationCursor newCursor(IcyMetadataListener listener) {
+            StationCursor cursor;
+
+            lock.lock();
+            try {
+                long burst = Math.min(Math.min(config.getHubBurstSize(), ring.length / 2), writePosition);
+                cursor = new StationCursor(this, writePosition - burst, listener);
+            } finally {
+                lock.unlock();
+            }
+
+            if (listener != null) {
+                listeners.add(listener);
+
+                IcyMetadata metadata = currentMetadata;
+                if (metadata != null) {
+                    listener.onMetadata(metadata);
+                }
+            }
+
+            return cursor;
+        }
+
+        private void onMetadata(IcyMetadata metadata) {
+            currentMetadata = metadata;
+
+            for (IcyMetadataListener listener : listeners) {
+                try {
+                    listener.onMetadata(metadata);
+                } catch (Exception e) {
+                    log.warn("Metadata listener failed for station {}: {}", url, e.getMessage());
+                }
+            }
+        }
+
+        private void pump() {
+            InputStream source = upstream.getAudioStream();
+            byte[] chunk = new byte[PUMP_CHUNK_SIZE];
+
+            try {
+                while (true) {
+                    int read = source.read(chunk, 0, chunk.length);
+                    if (read < 0) {
+                        finish(null);
+                        return;
+                    }
+
+                    write(chunk, read);
+                }
+            } catch (IOException e) {
+                finish(e);
+            } catch (Exception e) {
+                finish(new IOException("Unexpected error reading shared upstream: " + e.getMessage(), e));
+            }
+        }
+
+        private void write(byte[] chunk, int length) {
+            lock.lock();
+            try {
+                int index = (int) (writePosition % ring.length);
+                int first = Math.min(length, ring.length - index);
+                System.arraycopy(chunk, 0, ring, index, first);
+                System.arraycopy(chunk, first, ring, 0, length - first);
+                writePosition += length;
+                dataAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void finish(IOException cause) {
+            if (!isClosed() && cause != null) {
+                log.warn("Shared upstream for station {} failed: {}", url, cause.getMessage());
+            }
+
+            shutdown(cause);
+        }
+
+        private boolean isRunning() {
+            lock.lock();
+            try {
+                return !closed && upstream != null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isClosed() {
+            lock.lock();
+            try {
+                return closed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void closeIfIdle() {
+            lock.lock();
+            try {
+                if (refCount > 0 || closed) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            log.info("Closing idle shared upstream for station: {}", url);
+            shutdown(null);
+        }
+
+        void shutdown(IOException cause) {
+            IcyHttpStream toClose;
+
+            lock.lock();
+            try {
+                if (!ended) {
+                    ended = true;
+                    failure = cause;
+                }
+
+                closed = true;
+                toClose = upstream;
+                dataAvailable.signalAll();
+
+                if (lingerTask != null) {
+                    lingerTask.cancel(false);
+                    lingerTask = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            stations.remove(url, this);
+
+            if (toClose != null) {
+                try {
+                    toClose.close();
+                } catch (IOException e) {
+                    log.debug("Error closing shared upstream for station {}: {}", url, e.getMessage());
+                }
+            }
+        }
+
+        int read(StationCursor cursor, byte[] b, int off, int len) throws IOException {
+            lock.lock();
+            try {
+                while (cursor.position >= writePosition && !ended) {
+                    dataAvailable.await();
+                }
+
+                if (writePosition - cursor.position > ring.length) {
+                    // Reader fell behind the writer, jump back to the live edge
+                    long burst = Math.min(config.getHubBurstSize(), ring.length / 2);
+                    log.debug("Reader lagged {} bytes behind station {}, skipping to live edge",
+                        writePosition - cursor.position, url);
+                    cursor.position = writePosition - burst;
+                }
+
+                long available = writePosition - cursor.position;
+                if (available <= 0) {
+                    if (failure != null) {
+                        throw new IOException("Shared upstream failed: " + failure.getMessage(), failure);
+                    }
+                    return -1;
+                }
+
+                int toRead = (int) Math.min(len, available);
+                int index = (int) (cursor.position % ring.length);
+                int first = Math.min(toRead, ring.length - index);
+                System.arraycopy(ring, index, b, off, first);
+                System.arraycopy(ring, 0, b, off + first, toRead - first);
+                cursor.position += toRead;
+                return toRead;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for station data");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int available(StationCursor cursor) {
+            lock.lock();
+            try {
+                return (int) Math.min(Integer.MAX_VALUE, Math.max(0, writePosition - cursor.position));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Per-player view of a shared station. Reads block until the pump has new data.
+     */
+    public static class StationCursor extends InputStream {
+        private final SharedStation station;
+        private final IcyMetadataListener listener;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private long position;
+
+        private StationCursor(SharedStation station, long position, IcyMetadataListener listener) {
+            this.station = station;
+            this.position = position;
+            this.listener = listener;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int result = read(single, 0, 1);
+            return result < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed.get()) {
+                throw new IOException("Station cursor is closed");
+            }
+
+            if (len == 0) {
+                return 0;
+            }
+
+            return station.read(this, b, off, len);
+        }
+
+        @Override
+        public int available() {
+            return station.available(this);
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                station.release(this);
+            }
+        }
+    }
+}
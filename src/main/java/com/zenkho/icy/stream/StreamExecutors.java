@@ -0,0 +1,122 @@
+package com.zenkho.icy.stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads owned by the plugin: a scheduler for timers (backoff, linger, debounce) that
+ * must never block, an I/O pool for blocking work such as reconnect attempts, and the
+ * long-running upstream readers.
+ * <p>
+ * In virtual thread mode the I/O pool and the upstream readers run on virtual threads,
+ * so a connected stream that is waiting on its socket no longer holds a platform thread.
+ * The scheduler stays a platform thread since it only runs short timer callbacks. The
+ * plugin is built for Java 17, so the Java 21 virtual thread API is looked up reflectively.
+ */
+public class StreamExecutors {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamExecutors.class);
+
+    private final boolean virtualThreads;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService io;
+    private final ThreadFactory readerFactory;
+    private final AtomicInteger readerThreadIds = new AtomicInteger();
+
+    public StreamExecutors(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "icy-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicInteger ioThreadIds = new AtomicInteger();
+        if (virtualThreads) {
+            ThreadFactory factory = virtualThreadFactory();
+            this.io = newThreadPerTaskExecutor(runnable -> {
+                Thread thread = factory.newThread(runnable);
+                thread.setName("icy-io-" + ioThreadIds.incrementAndGet());
+                return thread;
+            });
+            this.readerFactory = factory;
+        } else {
+            this.io = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "icy-io-" + ioThreadIds.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.readerFactory = runnable -> {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    /**
+     * @return true if this JVM has virtual threads without preview flags (Java 21+)
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    // Thread.ofVirtual().factory()
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads need Java 21, running on " + Runtime.version(), unwrap(e));
+        }
+    }
+
+    // Executors.newThreadPerTaskExecutor(factory)
+    private static ExecutorService newThreadPerTaskExecutor(ThreadFactory factory) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads need Java 21, running on " + Runtime.version(), unwrap(e));
+        }
+    }
+
+    private static Throwable unwrap(ReflectiveOperationException e) {
+        return e instanceof InvocationTargetException ? e.getCause() : e;
+    }
+
+    public ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    public ExecutorService getIo() {
+        return io;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Start a thread that reads an upstream connection for as long as it stays open.
+     */
+    public Thread startReader(Runnable reader, String namePrefix) {
+        Thread thread = readerFactory.newThread(reader);
+        thread.setName(namePrefix + readerThreadIds.incrementAndGet());
+        thread.start();
+        return thread;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        io.shutdownNow();
+        log.debug("Stream executors shut down");
+    }
+}
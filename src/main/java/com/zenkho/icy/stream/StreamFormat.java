@@ -0,0 +1,168 @@
+package com.zenkho.icy.stream;
+
+/**
+ * Audio formats a station can broadcast, with the lavaplayer container that decodes them.
+ * <p>
+ * MP3 and ADTS are streams of self-contained frames, so a player can join them at any
+ * frame boundary and they can be shared and resynced after a reconnect. Ogg and FLAC need
+ * the header pages at the start of the connection, so every player gets its own.
+ * Opus is told apart from other Ogg codecs so it shows up in logs and the format cache.
+ * HLS is not an audio format itself but is routed the same way.
+ */
+public enum StreamFormat {
+    MP3("mp3", FrameAligner.Format.MP3),
+    ADTS("adts", FrameAligner.Format.ADTS),
+    OGG("ogg", null),
+
+    /**
+     * Ogg carrying Opus, played by the same container. Lavaplayer forwards its packets
+     * without decoding while the player outputs Opus at volume 100 without filters.
+     */
+    OPUS("ogg", null),
+    FLAC("flac", null),
+
+    /**
+     * HLS playlist, played by the HLS engine which picks the container for its segments.
+     */
+    HLS("hls", null);
+
+    /**
+     * Bytes read from the start of a stream to detect its format.
+     */
+    public static final int SNIFF_LENGTH = 4096;
+
+    private static final int TS_PACKET_SIZE = 188;
+    // Fixed part of an Ogg page header, followed by the segment table
+    private static final int OGG_PAGE_HEADER_SIZE = 27;
+
+    private final String containerName;
+    private final FrameAligner.Format frameFormat;
+
+    StreamFormat(String containerName, FrameAligner.Format frameFormat) {
+        this.containerName = containerName;
+        this.frameFormat = frameFormat;
+    }
+
+    /**
+     * @return name of the lavaplayer container probe for this format
+     */
+    public String getContainerName() {
+        return containerName;
+    }
+
+    /**
+     * @return true if a reader can start on any frame boundary
+     */
+    public boolean isResyncable() {
+        return frameFormat != null;
+    }
+
+    FrameAligner.Format getFrameFormat() {
+        return frameFormat;
+    }
+
+    /**
+     * @return format announced by the Content-Type header, or null if it does not name one
+     */
+    public static StreamFormat fromContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+
+        String lowerContentType = contentType.toLowerCase();
+        if (lowerContentType.contains("audio/mpeg") || lowerContentType.contains("audio/mp3")) {
+            return MP3;
+        } else if (lowerContentType.contains("aac")) {
+            return ADTS;
+        } else if (lowerContentType.contains("opus")) {
+            return OPUS;
+        } else if (lowerContentType.contains("ogg")) {
+            return OGG;
+        } else if (lowerContentType.contains("flac")) {
+            return FLAC;
+        } else if (lowerContentType.contains("mpegurl")) {
+            return HLS;
+        }
+
+        return null;
+    }
+
+    /**
+     * Detect the format from the first bytes of the audio (ICY metadata already removed).
+     *
+     * @return detected format, or null if the bytes are not conclusive
+     */
+    public static StreamFormat sniff(byte[] data, int length) {
+        if (startsWith(data, length, "OggS")) {
+            return isOggOpus(data, length) ? OPUS : OGG;
+        } else if (startsWith(data, length, "fLaC")) {
+            return FLAC;
+        } else if (startsWith(data, length, "ID3")) {
+            return MP3;
+        } else if (startsWith(data, length, "#EXTM3U")) {
+            return HLS;
+        }
+
+        // Frame headers of the two never match each other (ADTS has layer bits 00),
+        // so take whichever has two consecutive frames first
+        int mp3 = new FrameAligner(FrameAligner.Format.MP3).findFrameStart(data, length);
+        int adts = new FrameAligner(FrameAligner.Format.ADTS).findFrameStart(data, length);
+
+        if (mp3 >= 0 && (adts < 0 || mp3 < adts)) {
+            return MP3;
+        } else if (adts >= 0) {
+            return ADTS;
+        }
+
+        return null;
+    }
+
+    /**
+     * Pick the format from sniffed bytes, falling back to the Content-Type and then MP3,
+     * which is what most stations broadcast.
+     */
+    public static StreamFormat detect(String contentType, byte[] data, int length) {
+        StreamFormat sniffed = sniff(data, length);
+        if (sniffed != null) {
+            return sniffed;
+        }
+
+        StreamFormat announced = fromContentType(contentType);
+        return announced != null ? announced : MP3;
+    }
+
+    /**
+     * @return true if the bytes are MPEG transport stream packets, as HLS segments usually are
+     */
+    public static boolean isTransportStream(byte[] data, int length) {
+        return length >= 1 && data[0] == 0x47 && (length <= TS_PACKET_SIZE || data[TS_PACKET_SIZE] == 0x47);
+    }
+
+    // The first packet of an Ogg stream identifies the codec, for Opus it starts with OpusHead
+    private static boolean isOggOpus(byte[] data, int length) {
+        if (length <= OGG_PAGE_HEADER_SIZE) {
+            return false;
+        }
+
+        int packetStart = OGG_PAGE_HEADER_SIZE + (data[OGG_PAGE_HEADER_SIZE - 1] & 0xFF);
+        return matches(data, length, packetStart, "OpusHead");
+    }
+
+    private static boolean startsWith(byte[] data, int length, String magic) {
+        return matches(data, length, 0, magic);
+    }
+
+    private static boolean matches(byte[] data, int length, int offset, String magic) {
+        if (length < offset + magic.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < magic.length(); i++) {
+            if (data[offset + i] != magic.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,151 @@
+package com.zenkho.icy.stream;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Watches how fast the upstream delivers compared to the station bitrate.
+ * <p>
+ * Only time spent blocked in a socket read counts, so a paused player or a full buffer
+ * (consumer limited) never looks like a slow station. A drip-feeding upstream keeps the
+ * reader blocked while delivering too little, and a dead one keeps a single read blocked;
+ * both are reported as stalled once they last for the stall window.
+ * <p>
+ * The expected rate is learned from the samples of the healthy stream. The icy-br header
+ * is only the guess until the first healthy sample: it is often off for VBR and HE-AAC
+ * stations, so a stream that stays below it for a whole window is not reported, the rate
+ * it actually delivered is learned instead.
+ */
+class ThroughputMonitor {
+
+    private static final long SAMPLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Learned rate moves an eighth of the way towards every healthy sample
+    private static final int LEARNING_SHIFT = 3;
+
+    private final Config config;
+    private final LongSupplier clock;
+    private volatile long announcedBytesPerSecond;
+    private long learnedBytesPerSecond;
+
+    private long sampleStart;
+    private long sampleBytes;
+    private long sampleBlockedNanos;
+    private volatile long underRateSince;
+    private volatile long readStartedAt;
+
+    // Samples below the announced bitrate, while no healthy sample confirmed it
+    private long belowAnnouncedSince;
+    private long belowAnnouncedBytes;
+    private long belowAnnouncedNanos;
+
+    ThroughputMonitor(Config config) {
+        this(config, System::nanoTime);
+    }
+
+    ThroughputMonitor(Config config, LongSupplier clock) {
+        this.config = config;
+        this.clock = clock;
+        this.sampleStart = clock.getAsLong();
+    }
+
+    /**
+     * @param bitrateKbps bitrate announced by the station, 0 if it announced none
+     */
+    void setBitrate(int bitrateKbps) {
+        announcedBytesPerSecond = bitrateKbps * 1000L / 8;
+    }
+
+    void beforeRead() {
+        readStartedAt = clock.getAsLong();
+    }
+
+    void afterRead(int bytes) {
+        long now = clock.getAsLong();
+        sampleBlockedNanos += now - readStartedAt;
+        readStartedAt = 0;
+
+        if (bytes > 0) {
+            sampleBytes += bytes;
+        }
+
+        if (now - sampleStart >= SAMPLE_NANOS) {
+            closeSample(now);
+        }
+    }
+
+    private void closeSample(long now) {
+        long elapsed = now - sampleStart;
+
+        // Waited on the consumer more than on the network, the upstream kept up
+        if (sampleBlockedNanos * 2 < elapsed) {
+            underRateSince = 0;
+        } else {
+            long rate = sampleBytes * 1_000_000_000L / Math.max(1, sampleBlockedNanos);
+            long expected = learnedBytesPerSecond > 0 ? learnedBytesPerSecond : announcedBytesPerSecond;
+
+            if (expected == 0 || rate * 100 >= expected * config.getStallThresholdPercent()) {
+                underRateSince = 0;
+                belowAnnouncedSince = 0;
+                learn(rate);
+            } else if (learnedBytesPerSecond == 0) {
+                belowAnnounced(now);
+            } else if (underRateSince == 0) {
+                underRateSince = sampleStart;
+            }
+        }
+
+        sampleStart = now;
+        sampleBytes = 0;
+        sampleBlockedNanos = 0;
+    }
+
+    private void belowAnnounced(long now) {
+        if (belowAnnouncedSince == 0) {
+            belowAnnouncedSince = sampleStart;
+            belowAnnouncedBytes = 0;
+            belowAnnouncedNanos = 0;
+        }
+
+        belowAnnouncedBytes += sampleBytes;
+        belowAnnouncedNanos += sampleBlockedNanos;
+
+        // Never reached the header for a whole window, the header is what is wrong
+        if (now - belowAnnouncedSince >= TimeUnit.MILLISECONDS.toNanos(config.getStallWindowMs())) {
+            learnedBytesPerSecond = belowAnnouncedBytes * 1_000_000_000L / Math.max(1, belowAnnouncedNanos);
+            belowAnnouncedSince = 0;
+        }
+    }
+
+    private void learn(long rate) {
+        learnedBytesPerSecond = learnedBytesPerSecond == 0
+            ? rate
+            : learnedBytesPerSecond + ((rate - learnedBytesPerSecond) >> LEARNING_SHIFT);
+    }
+
+    /**
+     * @return true if the upstream delivered below the threshold, or not at all, for the
+     *         whole stall window. Safe to call from any thread.
+     */
+    boolean isStalled() {
+        long now = clock.getAsLong();
+        long window = TimeUnit.MILLISECONDS.toNanos(config.getStallWindowMs());
+        long slowSince = underRateSince;
+        long blockedSince = readStartedAt;
+
+        return (slowSince != 0 && now - slowSince >= window) || (blockedSince != 0 && now - blockedSince >= window);
+    }
+
+    /**
+     * Start over after a reconnect. The learned rate is kept, it belongs to the station.
+     */
+    void reset() {
+        sampleStart = clock.getAsLong();
+        sampleBytes = 0;
+        sampleBlockedNanos = 0;
+        underRateSince = 0;
+        readStartedAt = 0;
+        belowAnnouncedSince = 0;
+    }
+}
@@ -0,0 +1,84 @@
+package com.zenkho.icy.hls;
+
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HlsPlaylistTest {
+
+    private static final HttpUrl BASE = HttpUrl.get("https://radio.example.com/live/index.m3u8");
+
+    @Test
+    void parsesMasterPlaylist() throws IOException {
+        HlsPlaylist playlist = HlsPlaylist.parse(BASE, String.join("\n",
+            "#EXTM3U",
+            "#EXT-X-STREAM-INF:BANDWIDTH=64000,CODECS=\"mp4a.40.5\"",
+            "low/index.m3u8",
+            "#EXT-X-STREAM-INF:CODECS=\"mp4a.40.2\",BANDWIDTH=128000",
+            "https://cdn.example.com/high/index.m3u8"
+        ));
+
+        assertTrue(playlist.isMaster());
+        assertEquals(2, playlist.getVariants().size());
+        assertEquals("https://radio.example.com/live/low/index.m3u8", playlist.getVariants().get(0).getUri().toString());
+        assertEquals(128000, playlist.getBestVariant().getBandwidth());
+        assertEquals("https://cdn.example.com/high/index.m3u8", playlist.getBestVariant().getUri().toString());
+    }
+
+    @Test
+    void parsesMediaPlaylist() throws IOException {
+        HlsPlaylist playlist = HlsPlaylist.parse(BASE, String.join("\r\n",
+            "#EXTM3U",
+            "#EXT-X-TARGETDURATION:6",
+            "#EXT-X-MEDIA-SEQUENCE:41",
+            "#EXTINF:5.5,",
+            "seg41.aac",
+            "",
+            "#EXTINF:6.0,Artist - Song",
+            "/segments/seg42.aac",
+            "#EXT-X-ENDLIST"
+        ));
+
+        List<HlsPlaylist.Segment> segments = playlist.getSegments();
+        assertFalse(playlist.isMaster());
+        assertEquals(6000, playlist.getTargetDurationMs());
+        assertTrue(playlist.isEndList());
+        assertEquals(2, segments.size());
+        assertEquals(41, segments.get(0).getSequence());
+        assertEquals(5500, segments.get(0).getDurationMs());
+        assertEquals("https://radio.example.com/live/seg41.aac", segments.get(0).getUri().toString());
+        assertEquals(42, segments.get(1).getSequence());
+        assertEquals("https://radio.example.com/segments/seg42.aac", segments.get(1).getUri().toString());
+    }
+
+    @Test
+    void defaultsAndClampsTargetDuration() throws IOException {
+        assertEquals(10000, HlsPlaylist.parse(BASE, "#EXTM3U\nseg.aac").getTargetDurationMs());
+        assertEquals(1000, HlsPlaylist.parse(BASE, "#EXTM3U\n#EXT-X-TARGETDURATION:0\nseg.aac").getTargetDurationMs());
+    }
+
+    @Test
+    void detectsUnsupportedFeatures() throws IOException {
+        HlsPlaylist encrypted = HlsPlaylist.parse(BASE, "#EXTM3U\n#EXT-X-KEY:METHOD=AES-128,URI=\"key\"\nseg.aac");
+        HlsPlaylist plain = HlsPlaylist.parse(BASE, "#EXTM3U\n#EXT-X-KEY:METHOD=NONE\nseg.aac");
+        HlsPlaylist fragmented = HlsPlaylist.parse(BASE, "#EXTM3U\n#EXT-X-MAP:URI=\"init.mp4\"\nseg.m4s");
+
+        assertTrue(encrypted.isEncrypted());
+        assertFalse(plain.isEncrypted());
+        assertTrue(fragmented.isFragmentedMp4());
+        assertFalse(plain.isFragmentedMp4());
+    }
+
+    @Test
+    void rejectsOtherContent() {
+        assertThrows(IOException.class, () -> HlsPlaylist.parse(BASE, "[playlist]\nFile1=http://example.com"));
+        assertThrows(IOException.class, () -> HlsPlaylist.parse(BASE, ""));
+    }
+}
@@ -0,0 +1,97 @@
+package com.zenkho.icy.metadata;
+
+import com.zenkho.icy.metadata.IcyMetadataParser.IcyMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IcyMetadataParserTest {
+
+    private final IcyMetadataParser parser = new IcyMetadataParser();
+
+    @Test
+    void parsesTitleAndUrl() {
+        IcyMetadata metadata = parser.parse("StreamTitle='Artist - Song';StreamUrl='https://example.com';");
+
+        assertEquals("Artist - Song", metadata.getStreamTitle());
+        assertEquals("https://example.com", metadata.getStreamUrl());
+    }
+
+    @Test
+    void keepsQuotesInsideValue() {
+        assertEquals("It's Here", parser.parseStreamTitle("StreamTitle='It's Here';"));
+    }
+
+    @Test
+    void returnsNullWithoutKnownKeys() {
+        assertNull(parser.parse(null));
+        assertNull(parser.parse(""));
+        assertNull(parser.parse("Other='value';"));
+        assertNull(parser.parseStreamTitle("StreamTitle='unterminated"));
+    }
+
+    @Test
+    void findsValueRangesInRawBlock() {
+        byte[] block = pad("StreamTitle='Artist - Song';StreamUrl='https://example.com';", 80);
+        int length = IcyMetadataParser.trimmedLength(block, block.length);
+
+        assertEquals("Artist - Song", value(block, IcyMetadataParser.findStreamTitle(block, length)));
+        assertEquals("https://example.com", value(block, IcyMetadataParser.findStreamUrl(block, length)));
+    }
+
+    @Test
+    void agreesWithStringParser() {
+        String[] blocks = {
+            "StreamTitle='';",
+            "StreamTitle='It's Here';",
+            "StreamUrl='u';StreamTitle='t';",
+            "StreamTitle='Über – Ünïcödé';"
+        };
+
+        for (String text : blocks) {
+            byte[] block = text.getBytes(StandardCharsets.UTF_8);
+            assertEquals(parser.parseStreamTitle(text), value(block, IcyMetadataParser.findStreamTitle(block, block.length)), text);
+            assertEquals(parser.parseStreamUrl(text), value(block, IcyMetadataParser.findStreamUrl(block, block.length)), text);
+        }
+    }
+
+    @Test
+    void returnsMinusOneWhenAbsentOrUnterminated() {
+        byte[] block = "StreamTitle='no end".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(-1, IcyMetadataParser.findStreamTitle(block, block.length));
+        assertEquals(-1, IcyMetadataParser.findStreamUrl(block, block.length));
+        assertEquals(-1, IcyMetadataParser.findStreamTitle(new byte[0], 0));
+    }
+
+    @Test
+    void ignoresBytesBeyondLength() {
+        byte[] block = "StreamTitle='abc';".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(-1, IcyMetadataParser.findStreamTitle(block, block.length - 2));
+    }
+
+    @Test
+    void trimsTrailingPadding() {
+        byte[] block = pad("StreamTitle='a';", 32);
+
+        assertEquals(16, IcyMetadataParser.trimmedLength(block, block.length));
+        assertEquals(0, IcyMetadataParser.trimmedLength(new byte[16], 16));
+    }
+
+    private static byte[] pad(String text, int length) {
+        return Arrays.copyOf(text.getBytes(StandardCharsets.US_ASCII), length);
+    }
+
+    private static String value(byte[] block, long range) {
+        if (range < 0) {
+            return null;
+        }
+        int start = IcyMetadataParser.valueStart(range);
+        return new String(block, start, IcyMetadataParser.valueEnd(range) - start, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package com.zenkho.icy.source;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ConnectionHandoffTest {
+
+    private static final String URL = "http://radio.example.com/stream";
+
+    private final Config config = new Config();
+    private final MockWebServer server = new MockWebServer();
+    private final OkHttpClient client = new OkHttpClient.Builder().build();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ConnectionHandoff handoff = new ConnectionHandoff(config, scheduler);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server.start();
+        config.handoffTtlMs = 5000;
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        handoff.close();
+        scheduler.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    void handsResponseOutOnce() throws IOException {
+        Response response = open();
+        handoff.park(URL, response);
+
+        assertSame(response, handoff.take(URL));
+        assertNull(handoff.take(URL));
+        response.close();
+    }
+
+    @Test
+    void replacesEarlierResponse() throws IOException {
+        handoff.park(URL, open());
+        Response latest = open();
+        handoff.park(URL, latest);
+
+        assertSame(latest, handoff.take(URL));
+        latest.close();
+    }
+
+    @Test
+    void expiresAfterTtl() throws Exception {
+        config.handoffTtlMs = 50;
+        handoff.park(URL, open());
+
+        Thread.sleep(200);
+        assertNull(handoff.take(URL));
+    }
+
+    @Test
+    void closesWhenSchedulerIsShutDown() throws IOException {
+        scheduler.shutdownNow();
+        handoff.park(URL, open());
+
+        assertNull(handoff.take(URL));
+    }
+
+    @Test
+    void closesRightAwayWhenDisabled() throws IOException {
+        config.handoffTtlMs = 0;
+        handoff.park(URL, open());
+
+        assertNull(handoff.take(URL));
+    }
+
+    private Response open() throws IOException {
+        server.enqueue(new MockResponse().setBody("audio"));
+        return client.newCall(new Request.Builder().url(server.url("/stream")).build()).execute();
+    }
+}
@@ -0,0 +1,111 @@
+package com.zenkho.icy.source;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.metrics.IcyMetrics;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HostCircuitBreakerTest {
+
+    private final Config config = new Config();
+    private final MockWebServer server = new MockWebServer();
+    private HostCircuitBreaker breaker;
+    private OkHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server.start();
+        config.circuitBreakerFailureThreshold = 3;
+        config.circuitBreakerOpenMs = 60 * 1000;
+        breaker = new HostCircuitBreaker(config, IcyMetrics.disabled());
+        client = new OkHttpClient.Builder().addInterceptor(breaker).build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(500, call(500));
+        }
+
+        assertThrows(HostCircuitBreaker.CircuitOpenException.class, this::send);
+        assertEquals(3, server.getRequestCount());
+        assertEquals(1, breaker.getOpenCount());
+    }
+
+    @Test
+    void successResetsFailureCount() throws IOException {
+        assertEquals(500, call(500));
+        assertEquals(500, call(500));
+        assertEquals(200, call(200));
+        assertEquals(500, call(500));
+        assertEquals(500, call(500));
+
+        assertEquals(200, call(200));
+        assertEquals(0, breaker.getOpenCount());
+    }
+
+    @Test
+    void closesWhenTrialSucceeds() throws Exception {
+        config.circuitBreakerFailureThreshold = 1;
+        config.circuitBreakerOpenMs = 50;
+
+        assertEquals(500, call(500));
+        assertThrows(HostCircuitBreaker.CircuitOpenException.class, this::send);
+
+        Thread.sleep(100);
+        assertEquals(200, call(200));
+        assertEquals(0, breaker.getOpenCount());
+        assertEquals(200, call(200));
+    }
+
+    @Test
+    void reopensWhenTrialFails() throws Exception {
+        config.circuitBreakerFailureThreshold = 1;
+        config.circuitBreakerOpenMs = 50;
+
+        assertEquals(500, call(500));
+        Thread.sleep(100);
+        assertEquals(500, call(500));
+
+        assertThrows(HostCircuitBreaker.CircuitOpenException.class, this::send);
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, breaker.getOpenCount());
+    }
+
+    @Test
+    void passesEverythingWhenDisabled() throws IOException {
+        config.circuitBreakerFailureThreshold = 0;
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(500, call(500));
+        }
+        assertEquals(0, breaker.getOpenCount());
+    }
+
+    private int call(int code) throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(code));
+        return send();
+    }
+
+    private int send() throws IOException {
+        try (Response response = client.newCall(new Request.Builder().url(server.url("/")).build()).execute()) {
+            return response.code();
+        }
+    }
+}
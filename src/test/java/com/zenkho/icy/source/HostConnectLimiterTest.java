@@ -0,0 +1,156 @@
+package com.zenkho.icy.source;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.metrics.IcyMetrics;
+import com.zenkho.icy.stream.RequestPriority;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HostConnectLimiterTest {
+
+    private final Config config = new Config();
+    private final MockWebServer server = new MockWebServer();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<String> served = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HostConnectLimiter limiter;
+    private OkHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Requests to /hold keep their connect slot until the test releases them
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                served.add(request.getPath());
+                if (request.getPath().startsWith("/hold")) {
+                    release.await(10, TimeUnit.SECONDS);
+                }
+                return new MockResponse().setResponseCode(200);
+            }
+        });
+        server.start();
+
+        config.hostMaxConnects = 1;
+        limiter = new HostConnectLimiter(config, IcyMetrics.disabled());
+        client = new OkHttpClient.Builder().addInterceptor(limiter).build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        release.countDown();
+        executor.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    void letsPlaybackThroughBeforeProbes() throws Exception {
+        Future<Integer> hold = call("/hold", RequestPriority.LOAD);
+        waitUntil(() -> served.contains("/hold"));
+
+        Future<Integer> probe = call("/probe", RequestPriority.PROBE);
+        waitUntil(() -> limiter.getQueuedCount() == 1);
+        Future<Integer> playback = call("/playback", RequestPriority.PLAYBACK);
+        waitUntil(() -> limiter.getQueuedCount() == 2);
+
+        release.countDown();
+        assertEquals(200, code(hold));
+        assertEquals(200, code(playback));
+        assertEquals(200, code(probe));
+        assertEquals(Arrays.asList("/hold", "/playback", "/probe"), served);
+    }
+
+    @Test
+    void probesLeaveLastSlotFree() throws Exception {
+        config.hostMaxConnects = 2;
+
+        Future<Integer> hold = call("/hold", RequestPriority.LOAD);
+        waitUntil(() -> served.contains("/hold"));
+
+        Future<Integer> probe = call("/probe", RequestPriority.PROBE);
+        waitUntil(() -> limiter.getQueuedCount() == 1);
+        assertEquals(200, code(call("/load", RequestPriority.LOAD)));
+        assertFalse(probe.isDone());
+
+        release.countDown();
+        assertEquals(200, code(hold));
+        assertEquals(200, code(probe));
+        assertEquals(0, limiter.getQueuedCount());
+    }
+
+    @Test
+    void failsWhenSlotDoesNotFreeUpInTime() throws Exception {
+        config.connectionTimeout = 100;
+
+        call("/hold", RequestPriority.PLAYBACK);
+        waitUntil(() -> served.contains("/hold"));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+            () -> call("/late", RequestPriority.PLAYBACK).get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof HostConnectLimiter.ConnectBudgetException, String.valueOf(e.getCause()));
+        assertEquals(0, limiter.getQueuedCount());
+        assertFalse(served.contains("/late"));
+    }
+
+    @Test
+    void passesEverythingWhenDisabled() throws Exception {
+        config.hostMaxConnects = 0;
+
+        call("/hold/1", RequestPriority.PROBE);
+        call("/hold/2", RequestPriority.PROBE);
+
+        waitUntil(() -> served.size() == 2);
+        assertEquals(0, limiter.getQueuedCount());
+    }
+
+    private Future<Integer> call(String path, RequestPriority priority) {
+        Request request = new Request.Builder()
+            .url(server.url(path))
+            .tag(RequestPriority.class, priority)
+            .build();
+
+        return executor.submit(() -> {
+            try (Response response = client.newCall(request).execute()) {
+                return response.code();
+            }
+        });
+    }
+
+    private static int code(Future<Integer> call) throws Exception {
+        return call.get(5, TimeUnit.SECONDS);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for condition");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.zenkho.icy.source;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.stream.RequestPriority;
+import com.zenkho.icy.stream.StreamExecutors;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlaylistResolverTest {
+
+    private final Config config = new Config();
+    private final MockWebServer server = new MockWebServer();
+    private final StreamExecutors executors = new StreamExecutors(false);
+    private final OkHttpClient client = new OkHttpClient.Builder().build();
+    private final Map<String, MockResponse> mirrors = new ConcurrentHashMap<>();
+    private PlaylistResolver resolver;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                MockResponse response = mirrors.get(request.getPath());
+                return response != null ? response : new MockResponse().setResponseCode(404);
+            }
+        });
+        server.start();
+        resolver = new PlaylistResolver(config, () -> client, executors);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        executors.shutdown();
+        server.shutdown();
+    }
+
+    @Test
+    void parsesPlsInFileOrder() {
+        HttpUrl base = HttpUrl.get("http://radio.example.com/listen.pls");
+        String body = "[playlist]\nNumberOfEntries=3\nFile2=http://b.example.com/stream\nFile1=/relative\nTitle1=Ignored\nfile3=http://c.example.com/\n";
+
+        assertEquals(Arrays.asList("http://radio.example.com/relative", "http://b.example.com/stream", "http://c.example.com/"),
+            PlaylistResolver.parse(base, body));
+    }
+
+    @Test
+    void parsesM3uSkippingComments() {
+        HttpUrl base = HttpUrl.get("http://radio.example.com/listen.m3u");
+        String body = "#EXTM3U\n#EXTINF:-1,Station\nhttp://a.example.com/stream\n\nhttp://a.example.com/stream\nbackup\n";
+
+        assertEquals(Arrays.asList("http://a.example.com/stream", "http://radio.example.com/backup"),
+            PlaylistResolver.parse(base, body));
+    }
+
+    @Test
+    void firstMirrorWinsWithoutWaiting() throws IOException {
+        config.mirrorRaceDelayMs = 5000;
+        mirrors.put("/0", audio());
+
+        PlaylistResolver.Winner winner = race("/0", "/1");
+        try (Response ignored = winner.response) {
+            assertEquals(url("/0"), winner.url);
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void skipsMirrorsWithoutAudio() throws IOException {
+        config.mirrorRaceDelayMs = 5000;
+        mirrors.put("/0", new MockResponse().setResponseCode(503));
+        mirrors.put("/1", new MockResponse().setResponseCode(200));
+        mirrors.put("/2", audio());
+
+        PlaylistResolver.Winner winner = race("/0", "/1", "/2");
+        try (Response ignored = winner.response) {
+            assertEquals(url("/2"), winner.url);
+        }
+    }
+
+    @Test
+    void failureLaunchesNextMirrorNotYetStarted() throws IOException {
+        // Mirror 1 starts on its timer while mirror 0 is still connecting, then mirror 0
+        // fails: mirror 2 must start right away instead of on its timer at 2000ms
+        config.mirrorRaceDelayMs = 1000;
+        mirrors.put("/0", new MockResponse().setResponseCode(500).setHeadersDelay(1200, TimeUnit.MILLISECONDS));
+        mirrors.put("/1", audio().setHeadersDelay(3, TimeUnit.SECONDS));
+        mirrors.put("/2", audio());
+
+        long startedAt = System.nanoTime();
+        PlaylistResolver.Winner winner = race("/0", "/1", "/2");
+        try (Response ignored = winner.response) {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+            assertEquals(url("/2"), winner.url);
+            assertTrue(elapsedMs < 1800, "mirror 2 won after " + elapsedMs + "ms");
+        }
+    }
+
+    @Test
+    void failsWhenNoMirrorAnswers() {
+        config.mirrorRaceDelayMs = 10;
+        mirrors.put("/0", new MockResponse().setResponseCode(500));
+
+        IOException e = assertThrows(IOException.class, () -> race("/0", "/1"));
+        assertTrue(e.getMessage().startsWith("No mirror of playlist"), e.getMessage());
+    }
+
+    private PlaylistResolver.Winner race(String... paths) throws IOException {
+        List<String> candidates = Arrays.stream(paths).map(this::url).collect(Collectors.toList());
+        return resolver.race(url("/playlist.pls"), candidates, RequestPriority.LOAD);
+    }
+
+    private String url(String path) {
+        return server.url(path).toString();
+    }
+
+    private static MockResponse audio() {
+        return new MockResponse().setBody("audio");
+    }
+}
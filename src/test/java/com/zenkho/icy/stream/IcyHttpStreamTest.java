@@ -0,0 +1,196 @@
+package com.zenkho.icy.stream;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.metrics.IcyMetrics;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.zenkho.icy.stream.IcySourceInputStreamTest.block;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reconnects of {@link IcyHttpStream} against MockWebServer, checking that the decoder
+ * only ever sees whole MP3 frames across a dropped connection.
+ */
+class IcyHttpStreamTest {
+
+    // MPEG-1 Layer III, 128kbps, 44.1kHz, no padding: 417 byte frames
+    private static final byte[] FRAME_HEADER = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x00};
+    private static final int FRAME_LENGTH = 417;
+    private static final int META_INT = 1000;
+
+    private final Config config = new Config();
+    private final MockWebServer server = new MockWebServer();
+    private final StreamExecutors executors = new StreamExecutors(false);
+    private final OkHttpClient client = new OkHttpClient.Builder().build();
+    private IcyHttpStream stream;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server.start();
+        config.retryDelay = 10;
+        config.stallWatchdog = false;
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (stream != null) {
+            stream.close();
+        }
+        executors.shutdown();
+        server.shutdown();
+    }
+
+    @Test
+    void finishesCutFrameAndResumesOnFrameBoundary() throws IOException {
+        assertSplice(false);
+    }
+
+    @Test
+    void finishesCutFrameAndResumesOnFrameBoundaryWithOkioPipeline() throws IOException {
+        assertSplice(true);
+    }
+
+    private void assertSplice(boolean okioPipeline) throws IOException {
+        config.okioPipeline = okioPipeline;
+
+        // First connection ends 200 bytes into frame 10, the second starts mid-frame
+        byte[] frame10 = frame(10);
+        server.enqueue(icy(concat(frames(0, 10), Arrays.copyOf(frame10, 200))));
+        server.enqueue(icy(concat(filled(100, 0x11), frames(20, 10))));
+
+        byte[] expected = concat(frames(0, 10), Arrays.copyOf(frame10, 200), new byte[FRAME_LENGTH - 200], frames(20, 10));
+        stream = open();
+
+        byte[] actual = readFully(stream.getAudioStream(), expected.length);
+        assertTrue(Arrays.equals(expected, actual), "decoder bytes differ from the expected splice");
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void resumesAfterMidStreamDisconnect() throws IOException {
+        config.okioPipeline = true;
+
+        server.enqueue(icy(frames(0, 31)).setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+        server.enqueue(icy(concat(filled(150, 0x22), frames(40, 20))));
+        stream = open();
+
+        InputStream audio = stream.getAudioStream();
+        List<Integer> seen = new ArrayList<>();
+        int padded = 0;
+
+        while (seen.isEmpty() || seen.get(seen.size() - 1) != 59) {
+            byte[] frame = readFully(audio, FRAME_LENGTH);
+            assertTrue(Arrays.equals(FRAME_HEADER, Arrays.copyOf(frame, FRAME_HEADER.length)), "torn frame after " + seen);
+
+            int index = frame[FRAME_HEADER.length] - 1;
+            int payloadEnd = FRAME_HEADER.length;
+            while (payloadEnd < FRAME_LENGTH && frame[payloadEnd] == index + 1) {
+                payloadEnd++;
+            }
+            if (payloadEnd < FRAME_LENGTH) {
+                // Only the frame cut by the drop may end in padding
+                assertTrue(Arrays.equals(new byte[FRAME_LENGTH - payloadEnd], Arrays.copyOfRange(frame, payloadEnd, FRAME_LENGTH)));
+                padded++;
+            }
+
+            assertTrue(seen.isEmpty() || index > seen.get(seen.size() - 1), "frame " + index + " after " + seen);
+            seen.add(index);
+        }
+
+        assertTrue(padded <= 1, padded + " padded frames");
+        assertTrue(seen.contains(40), "second connection resumed at frame " + seen);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void givesUpAfterMaxRetries() throws IOException {
+        config.maxRetries = 2;
+        server.enqueue(icy(frames(0, 2)));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        stream = open();
+
+        InputStream audio = stream.getAudioStream();
+        readFully(audio, 2 * FRAME_LENGTH);
+
+        IOException e = assertThrows(IOException.class, () -> audio.read(new byte[64], 0, 64));
+        assertTrue(e.getMessage().startsWith("Max reconnection attempts reached"), e.getMessage());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    private IcyHttpStream open() throws IOException {
+        return new IcyHttpStream(server.url("/stream").toString(), client, config, executors, IcyMetrics.disabled(), null);
+    }
+
+    /**
+     * @return response with the audio and a metadata block every {@link #META_INT} bytes
+     */
+    private static MockResponse icy(byte[] audio) {
+        Buffer body = new Buffer();
+        for (int offset = 0; offset < audio.length; offset += META_INT) {
+            if (offset > 0) {
+                body.write(offset == META_INT ? block("StreamTitle='Song';") : new byte[1]);
+            }
+            body.write(audio, offset, Math.min(META_INT, audio.length - offset));
+        }
+
+        return new MockResponse()
+            .setHeader("Content-Type", "audio/mpeg")
+            .setHeader("icy-metaint", META_INT)
+            .setBody(body);
+    }
+
+    private static byte[] frames(int first, int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int index = first; index < first + count; index++) {
+            out.write(frame(index), 0, FRAME_LENGTH);
+        }
+        return out.toByteArray();
+    }
+
+    // Header followed by a payload of index + 1, which never looks like a sync word
+    private static byte[] frame(int index) {
+        byte[] frame = filled(FRAME_LENGTH, index + 1);
+        System.arraycopy(FRAME_HEADER, 0, frame, 0, FRAME_HEADER.length);
+        return frame;
+    }
+
+    private static byte[] filled(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        return IcySourceInputStreamTest.concat(parts);
+    }
+
+    private static byte[] readFully(InputStream stream, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int total = 0;
+        while (total < length) {
+            int read = stream.read(bytes, total, length - total);
+            if (read < 0) {
+                throw new IOException("Stream ended after " + total + " of " + length + " bytes");
+            }
+            total += read;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,92 @@
+package com.zenkho.icy.stream;
+
+import com.zenkho.icy.metrics.IcyMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.zenkho.icy.stream.IcySourceInputStreamTest.block;
+import static com.zenkho.icy.stream.IcySourceInputStreamTest.concat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IcyMetadataInputStreamTest {
+
+    private static final int META_INT = 8;
+    private static final byte[] AUDIO = {1, 2, 3, 4, 5, 6, 7, 8};
+
+    private final List<String> titles = new ArrayList<>();
+
+    @Test
+    void stripsMetadataBlocks() throws IOException {
+        InputStream stream = stream(new ByteArrayInputStream(concat(
+            AUDIO, block("StreamTitle='One';"), AUDIO, new byte[1], AUDIO, block("StreamTitle='Two';"), AUDIO)));
+
+        byte[] buffer = new byte[5];
+        int total = 0;
+        for (int read = stream.read(buffer, 0, buffer.length); read >= 0; read = stream.read(buffer, 0, buffer.length)) {
+            for (int i = 0; i < read; i++) {
+                assertEquals(AUDIO[(total + i) % META_INT], buffer[i]);
+            }
+            total += read;
+        }
+
+        assertEquals(4 * META_INT, total);
+        assertEquals(Arrays.asList("One", "Two"), titles);
+    }
+
+    @Test
+    void throwsWhenBlockIsCutOffByTimeout() throws IOException {
+        InputStream timingOut = stream(new InputStream() {
+            private final InputStream data = new ByteArrayInputStream(concat(AUDIO, Arrays.copyOf(block("StreamTitle='Cut off';"), 10)));
+
+            @Override
+            public int read() throws IOException {
+                int value = data.read();
+                if (value < 0) {
+                    throw new SocketTimeoutException("timeout");
+                }
+                return value;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = data.read(b, off, len);
+                if (read < 0) {
+                    throw new SocketTimeoutException("timeout");
+                }
+                return read;
+            }
+        });
+
+        byte[] buffer = new byte[64];
+        assertEquals(META_INT, timingOut.read(buffer, 0, buffer.length));
+        assertThrows(SocketTimeoutException.class, () -> timingOut.read(buffer, 0, buffer.length));
+        assertEquals(0, titles.size());
+    }
+
+    @Test
+    void keepsPlayingWhenListenerFails() throws IOException {
+        InputStream stream = new IcyMetadataInputStream(
+            new ByteArrayInputStream(concat(AUDIO, block("StreamTitle='One';"), AUDIO)),
+            META_INT, metadata -> {
+                throw new IllegalStateException("listener failed");
+            }, IcyMetrics.disabled());
+
+        byte[] buffer = new byte[64];
+        assertEquals(META_INT, stream.read(buffer, 0, buffer.length));
+        assertEquals(META_INT, stream.read(buffer, 0, buffer.length));
+        assertEquals(-1, stream.read(buffer, 0, buffer.length));
+    }
+
+    private InputStream stream(InputStream upstream) {
+        return new IcyMetadataInputStream(upstream, META_INT, metadata -> titles.add(metadata.getStreamTitle()),
+            IcyMetrics.disabled());
+    }
+}
@@ -0,0 +1,175 @@
+package com.zenkho.icy.stream;
+
+import com.zenkho.icy.metrics.IcyMetrics;
+import okio.Buffer;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IcySourceInputStreamTest {
+
+    private static final int META_INT = 16;
+
+    private final List<String> titles = new ArrayList<>();
+
+    @Test
+    void stripsMetadataBlocks() throws IOException {
+        Buffer upstream = new Buffer()
+            .write(audio('a')).write(block("StreamTitle='One';"))
+            .write(audio('b')).writeByte(0)
+            .write(audio('c')).write(block("StreamTitle='One';"))
+            .write(audio('d')).write(block("StreamTitle='Two';StreamUrl='u';"))
+            .write(audio('e'));
+
+        byte[] read = readAll(stream(upstream), 7);
+
+        assertEquals(new String(concat(audio('a'), audio('b'), audio('c'), audio('d'), audio('e')), StandardCharsets.US_ASCII),
+            new String(read, StandardCharsets.US_ASCII));
+        assertEquals(Arrays.asList("One", "Two"), titles);
+    }
+
+    @Test
+    void readsByteByByteAcrossBlocks() throws IOException {
+        Buffer upstream = new Buffer()
+            .write(audio('a')).write(block("StreamTitle='One';"))
+            .write(audio('b'));
+        InputStream stream = stream(upstream);
+
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        for (int value = stream.read(); value >= 0; value = stream.read()) {
+            read.write(value);
+        }
+
+        assertEquals(2 * META_INT, read.size());
+        assertEquals('b', read.toByteArray()[META_INT]);
+        assertEquals(Arrays.asList("One"), titles);
+    }
+
+    @Test
+    void skipsAudioUpToBlocks() throws IOException {
+        Buffer upstream = new Buffer()
+            .write(audio('a')).write(block("StreamTitle='One';"))
+            .write(audio('b')).write(block("StreamTitle='Two';"));
+        InputStream stream = stream(upstream);
+
+        assertEquals(META_INT, stream.skip(Long.MAX_VALUE));
+        assertEquals(META_INT, stream.skip(Long.MAX_VALUE));
+        assertEquals(Arrays.asList("One"), titles);
+    }
+
+    @Test
+    void throwsWhenBlockIsCutOffByTimeout() throws IOException {
+        byte[] block = block("StreamTitle='Cut off';");
+        InputStream stream = new IcySourceInputStream(
+            Okio.buffer(new FailingSource(concat(audio('a'), Arrays.copyOf(block, 10)))),
+            META_INT, metadata -> titles.add(metadata.getStreamTitle()), IcyMetrics.disabled());
+
+        byte[] buffer = new byte[64];
+        assertEquals(META_INT, readFully(stream, buffer, META_INT));
+
+        // The metadata already buffered must never come out as audio
+        assertThrows(SocketTimeoutException.class, () -> stream.read(buffer, 0, buffer.length));
+        assertEquals(0, titles.size());
+    }
+
+    @Test
+    void keepsPlayingWhenListenerFails() throws IOException {
+        Buffer upstream = new Buffer()
+            .write(audio('a')).write(block("StreamTitle='One';"))
+            .write(audio('b'));
+        InputStream stream = new IcySourceInputStream(upstream, META_INT, metadata -> {
+            throw new IllegalStateException("listener failed");
+        }, IcyMetrics.disabled());
+
+        assertEquals(2 * META_INT, readAll(stream, 64).length);
+    }
+
+    private InputStream stream(Buffer upstream) {
+        return new IcySourceInputStream(upstream, META_INT, metadata -> titles.add(metadata.getStreamTitle()),
+            IcyMetrics.disabled());
+    }
+
+    private static byte[] audio(char fill) {
+        byte[] audio = new byte[META_INT];
+        Arrays.fill(audio, (byte) fill);
+        return audio;
+    }
+
+    /**
+     * @return length byte followed by the text padded with NULs to a multiple of 16
+     */
+    static byte[] block(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int units = (bytes.length + 15) / 16;
+        byte[] block = new byte[1 + units * 16];
+        block[0] = (byte) units;
+        System.arraycopy(bytes, 0, block, 1, bytes.length);
+        return block;
+    }
+
+    static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream stream, int chunk) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[chunk];
+        for (int read = stream.read(buffer, 0, chunk); read >= 0; read = stream.read(buffer, 0, chunk)) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static int readFully(InputStream stream, byte[] buffer, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            total += stream.read(buffer, total, length - total);
+        }
+        return total;
+    }
+
+    /**
+     * Delivers its data, then times out like a stalled socket.
+     */
+    private static class FailingSource implements Source {
+        private final Buffer data = new Buffer();
+
+        FailingSource(byte[] bytes) {
+            data.write(bytes);
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            if (data.size() == 0) {
+                throw new SocketTimeoutException("timeout");
+            }
+            return data.read(sink, byteCount);
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.zenkho.icy.stream;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import com.zenkho.icy.metrics.IcyMetrics;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StationHubTest {
+
+    // Byte i of every upstream body is i % PATTERN, so positions can be checked
+    private static final int PATTERN = 251;
+
+    private final Config config = new Config();
+    private final MockWebServer server = new MockWebServer();
+    private final StreamExecutors executors = new StreamExecutors(false);
+    private final OkHttpClient client = new OkHttpClient.Builder().build();
+    private StationHub hub;
+    private String url;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server.start();
+        url = server.url("/station").toString();
+
+        config.hubBufferSize = 16 * 1024;
+        config.hubBurstSize = 4096;
+        config.stallWatchdog = false;
+        hub = new StationHub(config, executors,
+            stationUrl -> new IcyHttpStream(stationUrl, client, config, executors, IcyMetrics.disabled(), null));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        hub.close();
+        executors.shutdown();
+        server.shutdown();
+    }
+
+    @Test
+    void sharesOneUpstreamBetweenCursors() throws Exception {
+        server.enqueue(live());
+
+        try (InputStream first = hub.attach(url, null); InputStream second = hub.attach(url, null)) {
+            assertConsecutive(readFully(first, 8192));
+            assertConsecutive(readFully(second, 8192));
+        }
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, hub.getStationCount());
+    }
+
+    @Test
+    void laggingCursorSkipsToLiveEdge() throws Exception {
+        int length = 100_000;
+        config.autoReconnect = false;
+        server.enqueue(body(length));
+
+        InputStream cursor = hub.attach(url, null);
+        // The upstream ends once the whole body is in the ring, far ahead of the cursor
+        waitUntil(() -> !hub.isStationActive(url));
+
+        byte[] burst = readFully(cursor, config.getHubBurstSize());
+        assertEquals((length - config.getHubBurstSize()) % PATTERN, burst[0] & 0xFF);
+        assertConsecutive(burst);
+
+        IOException e = assertThrows(IOException.class, () -> cursor.read(new byte[16], 0, 16));
+        assertTrue(e.getMessage().startsWith("Shared upstream failed"), e.getMessage());
+        cursor.close();
+    }
+
+    @Test
+    void lingersAfterLastCursorCloses() throws Exception {
+        config.hubLingerMs = 300;
+        server.enqueue(live());
+
+        InputStream first = hub.attach(url, null);
+        readFully(first, 1024);
+        first.close();
+        assertTrue(hub.isStationActive(url));
+
+        // Reattached within the linger, the connection is reused
+        InputStream second = hub.attach(url, null);
+        assertConsecutive(readFully(second, 1024));
+        assertEquals(1, server.getRequestCount());
+        second.close();
+
+        waitUntil(() -> !hub.isStationActive(url));
+        assertEquals(0, hub.getStationCount());
+        assertFalse(hub.isStationActive(url));
+    }
+
+    /**
+     * @return body that keeps streaming for the length of a test
+     */
+    private static MockResponse live() {
+        return body(4 * 1024 * 1024).throttleBody(16 * 1024, 50, TimeUnit.MILLISECONDS);
+    }
+
+    private static MockResponse body(int length) {
+        Buffer body = new Buffer();
+        for (int i = 0; i < length; i++) {
+            body.writeByte(i % PATTERN);
+        }
+        return new MockResponse().setHeader("Content-Type", "application/octet-stream").setBody(body);
+    }
+
+    private static void assertConsecutive(byte[] bytes) {
+        for (int i = 1; i < bytes.length; i++) {
+            assertEquals(((bytes[i - 1] & 0xFF) + 1) % PATTERN, bytes[i] & 0xFF, "gap at " + i);
+        }
+    }
+
+    private static byte[] readFully(InputStream stream, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int total = 0;
+        while (total < length) {
+            int read = stream.read(bytes, total, length - total);
+            if (read < 0) {
+                throw new IOException("Stream ended after " + total + " of " + length + " bytes");
+            }
+            total += read;
+        }
+        return bytes;
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for condition");
+            Thread.sleep(10);
+        }
+    }
+}
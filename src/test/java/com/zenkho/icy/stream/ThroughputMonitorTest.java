@@ -0,0 +1,124 @@
+package com.zenkho.icy.stream;
+
+import com.zenkho.icy.IcyStreamPlugin.Config;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThroughputMonitorTest {
+
+    private static final long READ_MS = 100;
+
+    private final Config config = new Config();
+    private long now = TimeUnit.HOURS.toNanos(1);
+    private ThroughputMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        config.stallWindowMs = 10000;
+        config.stallThresholdPercent = 75;
+        monitor = new ThroughputMonitor(config, () -> now);
+    }
+
+    @Test
+    void learnsRateWhenHeaderIsTooHigh() {
+        // Announces 320kbps but really sends 96kbps, like many HE-AAC stations
+        monitor.setBitrate(320);
+
+        for (int second = 0; second < 60; second++) {
+            deliver(96, 1000);
+            assertFalse(monitor.isStalled(), "stalled after " + second + "s");
+        }
+    }
+
+    @Test
+    void detectsDripFeedAfterLearningFromWrongHeader() {
+        monitor.setBitrate(320);
+        deliver(96, 15000);
+        assertFalse(monitor.isStalled());
+
+        deliver(24, 9000);
+        assertFalse(monitor.isStalled());
+        deliver(24, 3000);
+        assertTrue(monitor.isStalled());
+    }
+
+    @Test
+    void detectsDripFeedBelowConfirmedHeader() {
+        monitor.setBitrate(128);
+        deliver(128, 5000);
+
+        deliver(32, 12000);
+        assertTrue(monitor.isStalled());
+    }
+
+    @Test
+    void learnsRateWithoutHeader() {
+        deliver(128, 5000);
+        deliver(120, 20000);
+        assertFalse(monitor.isStalled());
+
+        deliver(40, 12000);
+        assertTrue(monitor.isStalled());
+    }
+
+    @Test
+    void ignoresTimeWaitingOnConsumer() {
+        monitor.setBitrate(128);
+        deliver(128, 5000);
+
+        // Player paused: reads return at once, then nothing is read for a long time
+        for (int second = 0; second < 30; second++) {
+            read(100);
+            now += TimeUnit.SECONDS.toNanos(1);
+        }
+        assertFalse(monitor.isStalled());
+    }
+
+    @Test
+    void detectsReadBlockedForWholeWindow() {
+        monitor.setBitrate(128);
+        deliver(128, 5000);
+
+        monitor.beforeRead();
+        now += TimeUnit.MILLISECONDS.toNanos(9000);
+        assertFalse(monitor.isStalled());
+        now += TimeUnit.MILLISECONDS.toNanos(2000);
+        assertTrue(monitor.isStalled());
+    }
+
+    @Test
+    void resetClearsStallButKeepsLearnedRate() {
+        monitor.setBitrate(128);
+        deliver(128, 5000);
+        deliver(32, 12000);
+        assertTrue(monitor.isStalled());
+
+        monitor.reset();
+        assertFalse(monitor.isStalled());
+
+        // The learned rate still applies to the new connection
+        deliver(32, 12000);
+        assertTrue(monitor.isStalled());
+    }
+
+    /**
+     * Network limited reads, each blocking {@link #READ_MS} and delivering the given rate.
+     */
+    private void deliver(int kbps, long durationMs) {
+        for (long elapsed = 0; elapsed < durationMs; elapsed += READ_MS) {
+            monitor.beforeRead();
+            now += TimeUnit.MILLISECONDS.toNanos(READ_MS);
+            monitor.afterRead((int) (kbps * 1000L / 8 * READ_MS / 1000));
+        }
+    }
+
+    private void read(int bytes) {
+        monitor.beforeRead();
+        monitor.afterRead(bytes);
+    }
+}